@@ -57,6 +57,14 @@ export const dataProvider = (
                 url += `&onlyWithoutSchema=${onlyWithoutSchema}`;
             }
 
+            // server-side filter expressions, e.g. status.phase=Running
+            const expressions = params?.filter?.filter;
+            if (expressions) {
+                [].concat(expressions).forEach((f: string) => {
+                    url += `&filter=${encodeURIComponent(f)}`;
+                });
+            }
+
             return httpClient(url).then(({ headers, json }) => {
                 if (!json.content) {
                     throw new Error('the response must match page<> model');
@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Conversion of the stored schemas between the entity map and the database column ({@link SchemaDataConverter}),
+ * for each storage format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchemaDataConverterBenchmark {
+
+    @Param({ "postgresusers.db.movetokube.com", "buckets.minio.scc-digitalhub.github.io" })
+    private String crdId;
+
+    @Param({ SchemaDataConverter.FORMAT_JSON, SchemaDataConverter.FORMAT_SMILE })
+    private String format;
+
+    private SchemaDataConverter converter;
+    private byte[] data;
+    private Map<String, Serializable> map;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = SchemaDataConverterBenchmark.class.getResourceAsStream("/schemas/" + crdId + ".json")) {
+            map = SchemaDataConverter.decode(in.readAllBytes());
+        }
+        converter = new SchemaDataConverter(format);
+        data = converter.convertToDatabaseColumn(map);
+    }
+
+    @Benchmark
+    public byte[] toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(map);
+    }
+
+    /**
+     * Entity load, the schema is not read
+     */
+    @Benchmark
+    public Map<String, Serializable> toEntityAttribute() {
+        return converter.convertToEntityAttribute(data);
+    }
+
+    @Benchmark
+    public int toEntityAttributeAndRead() {
+        return converter.convertToEntityAttribute(data).size();
+    }
+
+    /**
+     * Load and dirty check of an unchanged schema
+     */
+    @Benchmark
+    public byte[] roundTrip() {
+        return converter.convertToDatabaseColumn(converter.convertToEntityAttribute(data));
+    }
+}
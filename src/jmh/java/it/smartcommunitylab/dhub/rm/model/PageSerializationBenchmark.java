@@ -0,0 +1,122 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+
+/**
+ * JSON serialization of the pages returned by the list endpoints, with the object mapper
+ * configured as in the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    @Param({ "10", "100" })
+    private int pageSize;
+
+    private ObjectMapper mapper;
+    private Page<IdAwareResource<Deployment>> resources;
+    private Page<IdAwareCustomResource> customResources;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        GenericKubernetesResource sample;
+        try (InputStream in = PageSerializationBenchmark.class.getResourceAsStream("/samples/postgresusers.db.movetokube.com.json")) {
+            sample = mapper.readValue(in, GenericKubernetesResource.class);
+        }
+
+        List<IdAwareResource<Deployment>> deployments = new ArrayList<>(pageSize);
+        List<IdAwareCustomResource> crs = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String name = String.format("tenant-%04d", i);
+            deployments.add(new IdAwareResource<>(deployment(name)));
+
+            GenericKubernetesResource cr = mapper.convertValue(sample, GenericKubernetesResource.class);
+            cr.getMetadata().setName(name);
+            crs.add(new IdAwareCustomResource(cr));
+        }
+        resources = new PageImpl<>(deployments, PageRequest.ofSize(pageSize), pageSize * 10L);
+        customResources = new PageImpl<>(crs, PageRequest.ofSize(pageSize), pageSize * 10L);
+    }
+
+    private static Deployment deployment(String name) {
+        return new DeploymentBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withNamespace("bench")
+            .withResourceVersion("12345")
+            .withLabels(Map.of("app.kubernetes.io/name", name, "app.kubernetes.io/managed-by", "krm"))
+            .endMetadata()
+            .withNewSpec()
+            .withReplicas(2)
+            .withNewSelector()
+            .withMatchLabels(Map.of("app.kubernetes.io/name", name))
+            .endSelector()
+            .withNewTemplate()
+            .withNewMetadata()
+            .withLabels(Map.of("app.kubernetes.io/name", name))
+            .endMetadata()
+            .withNewSpec()
+            .addNewContainer()
+            .withName("app")
+            .withImage("ghcr.io/scc-digitalhub/app:1.0.0")
+            .addNewPort()
+            .withContainerPort(8080)
+            .endPort()
+            .addNewEnv()
+            .withName("TENANT")
+            .withValue(name)
+            .endEnv()
+            .endContainer()
+            .endSpec()
+            .endTemplate()
+            .endSpec()
+            .withNewStatus()
+            .withReplicas(2)
+            .withReadyReplicas(2)
+            .withAvailableReplicas(2)
+            .endStatus()
+            .build();
+    }
+
+    @Benchmark
+    public byte[] resourcePage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(resources);
+    }
+
+    @Benchmark
+    public byte[] customResourcePage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(customResources);
+    }
+}
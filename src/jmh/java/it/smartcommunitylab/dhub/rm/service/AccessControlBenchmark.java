@@ -0,0 +1,134 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.config.AuthenticationProperties;
+import it.smartcommunitylab.dhub.rm.config.RoleProperties;
+import it.smartcommunitylab.dhub.rm.service.AccessControlService.RESOURCE_OP;
+
+/**
+ * Authorization checks ({@link AccessControlService#canAccess}) with many configured roles,
+ * each granting access to a subset of the CRDs. The user holds a few of the roles.
+ * Checks run within a request, {@code firstCheck} measures the resolution of the permissions of the request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccessControlBenchmark {
+
+    private static final int CRDS = 200;
+    private static final int USER_ROLES = 5;
+
+    @Param({ "10", "100", "1000" })
+    private int roles;
+
+    private AccessControlService service;
+    // ids of the checked resources, not built in the measured calls
+    private final String granted = crd(0);
+    private final String denied = crd(1);
+
+    @Setup
+    public void setUp() {
+        List<RoleProperties.RoleConfig> configs = new ArrayList<>(roles);
+        for (int r = 0; r < roles; r++) {
+            RoleProperties.RoleConfig config = new RoleProperties.RoleConfig();
+            config.setRole("ROLE_" + r);
+            List<String> resources = new ArrayList<>();
+            for (int c = r % 10; c < CRDS; c += 10) {
+                resources.add(crd(c) + "::" + (r % 2 == 0 ? "read" : "write"));
+            }
+            resources.add("k8s_job::list");
+            config.setResources(resources);
+            configs.add(config);
+        }
+        RoleProperties roleProperties = new RoleProperties();
+        roleProperties.setRoles(configs);
+
+        AuthenticationProperties.BasicAuthenticationProperties basic = new AuthenticationProperties.BasicAuthenticationProperties();
+        basic.setUsername("user");
+        basic.setPassword("password");
+        AuthenticationProperties authenticationProperties = new AuthenticationProperties();
+        authenticationProperties.setBasic(basic);
+        authenticationProperties.setOauth2(new AuthenticationProperties.OAuth2AuthenticationProperties());
+
+        service = new AccessControlService();
+        ReflectionTestUtils.setField(service, "authenticationProperties", authenticationProperties);
+        ReflectionTestUtils.setField(service, "roleProperties", roleProperties);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "namespaceService", new NamespaceService(null, List.of(), null, "default", "", ""));
+        service.initRoles();
+        service.initMetrics();
+
+        String[] authorities = new String[USER_ROLES];
+        for (int i = 0; i < USER_ROLES; i++) {
+            authorities[i] = "ROLE_" + (i * roles / USER_ROLES);
+        }
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList(authorities))
+        );
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static String crd(int i) {
+        return "crd" + i + ".example.com";
+    }
+
+    @Benchmark
+    public boolean canAccessGranted() {
+        return service.canAccess(granted, RESOURCE_OP.read);
+    }
+
+    @Benchmark
+    public boolean canAccessDenied() {
+        return service.canAccess(denied, RESOURCE_OP.write);
+    }
+
+    @Benchmark
+    public boolean canAccessUnknown() {
+        return service.canAccess("unknown.example.com", RESOURCE_OP.list);
+    }
+
+    @Benchmark
+    public boolean firstCheck() {
+        RequestContextHolder.getRequestAttributes().removeAttribute(AccessControlService.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return service.canAccess(granted, RESOURCE_OP.read);
+    }
+
+    @Benchmark
+    public Map<String, Set<RESOURCE_OP>> userPermissions() {
+        return service.getUserPermissions();
+    }
+}
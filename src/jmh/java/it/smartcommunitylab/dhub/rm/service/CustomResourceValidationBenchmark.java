@@ -0,0 +1,111 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.ValidationMessage;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.model.CustomResourceSchema;
+
+/**
+ * Schema validation of CRs, as done on create and update: the schema is obtained from
+ * {@link CustomResourceSchemaService#getJsonSchema} and the CR content validated against it.
+ * Schemas and sample CRs are read from /schemas and /samples, named after the CRD id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomResourceValidationBenchmark {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Param({ "postgresusers.db.movetokube.com", "buckets.minio.scc-digitalhub.github.io" })
+    private String crdId;
+
+    private CustomResourceSchemaService schemaService;
+    private CustomResourceSchema schema;
+    private CustomResourceSchema unversionedSchema;
+    private JsonNode valid;
+    private JsonNode invalid;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Serializable> map = mapper.readValue(read("/schemas/" + crdId + ".json"), new TypeReference<>() {});
+        schema = schema(map, "1");
+        // without revision the schema is never cached
+        unversionedSchema = schema(map, null);
+
+        GenericKubernetesResource cr = mapper.readValue(read("/samples/" + crdId + ".json"), GenericKubernetesResource.class);
+        valid = cr.getAdditionalPropertiesNode();
+        // same CR with numbers in place of the string fields of the spec
+        invalid = valid.deepCopy();
+        ObjectNode spec = (ObjectNode) invalid.get("spec");
+        spec.deepCopy().fields().forEachRemaining(e -> {
+            if (e.getValue().isTextual()) {
+                spec.put(e.getKey(), 1);
+            }
+        });
+
+        // repository and CRD service are not used for compilation
+        schemaService = new CustomResourceSchemaService(null, null, null, null, new SimpleMeterRegistry());
+        if (!schemaService.getJsonSchema(schema).validate(valid).isEmpty()) {
+            throw new IllegalStateException("Sample CR is not valid for " + crdId);
+        }
+    }
+
+    private CustomResourceSchema schema(Map<String, Serializable> map, String revision) {
+        CustomResourceSchema s = new CustomResourceSchema();
+        s.setCrdId(crdId);
+        s.setVersion("v1");
+        s.setSchema(map);
+        s.setRevision(revision);
+        return s;
+    }
+
+    private static InputStream read(String path) {
+        InputStream in = CustomResourceValidationBenchmark.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new IllegalArgumentException("Missing resource " + path);
+        }
+        return in;
+    }
+
+    @Benchmark
+    public Set<ValidationMessage> validateValid() {
+        return schemaService.getJsonSchema(schema).validate(valid);
+    }
+
+    @Benchmark
+    public Set<ValidationMessage> validateInvalid() {
+        return schemaService.getJsonSchema(schema).validate(invalid);
+    }
+
+    @Benchmark
+    public JsonSchema compile() {
+        return schemaService.getJsonSchema(unversionedSchema);
+    }
+}
@@ -0,0 +1,126 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.unit.DataSize;
+
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
+
+/**
+ * Sort and page of the cached resources of a namespace ({@link K8SResourceService#findAll}).
+ * The cache is loaded once from generated jobs, no API server is contacted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResourceFindAllBenchmark {
+
+    private static final String NAMESPACE = "bench";
+
+    @Param({ "1000", "10000", "100000" })
+    private int size;
+
+    private KubernetesClient client;
+    private K8SCallExecutor callExecutor;
+    private JobService service;
+    private PageRequest lastPage;
+    private PageRequest newestPage;
+
+    @Setup
+    public void setUp() {
+        // jobs in random order, with a fixed seed
+        List<Job> jobs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            jobs.add(
+                new JobBuilder()
+                    .withNewMetadata()
+                    .withName(String.format("job-%06d", i))
+                    .withNamespace(NAMESPACE)
+                    .withResourceVersion(String.valueOf(i))
+                    .withCreationTimestamp(Instant.ofEpochSecond(1_700_000_000L + i % 1000).toString())
+                    .endMetadata()
+                    .withNewSpec()
+                    .withBackoffLimit(3)
+                    .endSpec()
+                    .build()
+            );
+        }
+        Collections.shuffle(jobs, new Random(42));
+
+        // never connected: the items are served by the overridden loader
+        client = new KubernetesClientBuilder().withConfig(new ConfigBuilder().withMasterUrl("https://localhost:6443").build()).build();
+        callExecutor = new K8SCallExecutor(1);
+        service = new JobService(client, callExecutor, jobs);
+        lastPage = PageRequest.of(size / 25 - 1, 25);
+        newestPage = PageRequest.of(0, 25, Sort.by(Sort.Direction.DESC, "metadata.creationTimestamp"));
+        service.findAll(NAMESPACE, null, PageRequest.ofSize(25));
+    }
+
+    @TearDown
+    public void tearDown() {
+        callExecutor.shutdown();
+        client.close();
+    }
+
+    @Benchmark
+    public Page<IdAwareResource<Job>> firstPage() {
+        return service.findAll(NAMESPACE, null, PageRequest.ofSize(25));
+    }
+
+    @Benchmark
+    public Page<IdAwareResource<Job>> lastPage() {
+        return service.findAll(NAMESPACE, null, lastPage);
+    }
+
+    @Benchmark
+    public Page<IdAwareResource<Job>> newestPage() {
+        return service.findAll(NAMESPACE, null, newestPage);
+    }
+
+    @Benchmark
+    public Page<IdAwareResource<Job>> byIds() {
+        return service.findAll(NAMESPACE, List.of("job-000001", "job-000500", "job-000999"), PageRequest.ofSize(25));
+    }
+
+    private static class JobService extends K8SResourceService<Job> {
+
+        private final List<Job> jobs;
+
+        JobService(KubernetesClient client, K8SCallExecutor callExecutor, List<Job> jobs) {
+            super(client, null, callExecutor, new SimpleMeterRegistry(), 3600, DataSize.ofGigabytes(1));
+            this.jobs = jobs;
+        }
+
+        @Override
+        protected List<Job> getItems(String namespace) {
+            return jobs;
+        }
+    }
+}
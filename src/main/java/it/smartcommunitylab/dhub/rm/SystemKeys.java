@@ -13,6 +13,8 @@ public final class SystemKeys {
     public static final MediaType MEDIA_TYPE_X_YAML = MediaType.valueOf("application/x-yaml");
 
     public static final String API_PATH = "/api";
+    public static final String NAMESPACE_PATH = "/namespaces";
+    public static final String NAMESPACE_HEADER = "X-Namespace";
     public static final String CONSOLE_PATH = "/console";
     public static final String REGEX_CRD_ID = "[a-z0-9-]+(?:\\.[a-z0-9-]+)+";
     public static final String REGEX_SCHEMA_ID = "[a-z0-9-]+";
@@ -30,6 +32,8 @@ public final class SystemKeys {
     public static final String ERROR_K8S_NO_CRD = "No such CRD exists in Kubernetes";
 
     public static final String ERROR_NO_RESOURCE = "No Resource with this ID";
+    public static final String ERROR_NO_STORAGE_CLASS = "Storage class not available";
+    public static final String ERROR_NAMESPACE_NOT_ALLOWED = "Access to this namespace is not allowed";
 
     private SystemKeys() {}
 }
@@ -4,20 +4,26 @@
 
 package it.smartcommunitylab.dhub.rm.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkResultDTO;
 import it.smartcommunitylab.dhub.rm.service.CustomResourceService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.constraints.Pattern;
 import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -40,7 +46,9 @@ import org.springframework.web.bind.annotation.RestController;
  *   <li><b>GET /{crdId}/{id}</b>: Retrieve a single custom resource by CRD and resource ID.</li>
  *   <li><b>POST /{crdId}</b>: Create a new custom resource for a specified CRD.</li>
  *   <li><b>PUT /{crdId}/{id}</b>: Update an existing custom resource by CRD and resource ID.</li>
+ *   <li><b>PATCH /{crdId}/{id}</b>: Patch an existing custom resource with a JSON merge patch or a JSON patch.</li>
  *   <li><b>DELETE /{crdId}/{id}</b>: Delete a custom resource by CRD and resource ID.</li>
+ *   <li><b>POST /{crdId}/_bulk</b>: Create, update and delete multiple custom resources of a CRD, with per-item results.</li>
  * </ul>
  *
  * <h2>Security:</h2>
@@ -53,7 +61,7 @@ import org.springframework.web.bind.annotation.RestController;
  * <ul>
  *   <li><b>crdId</b>: The identifier of the Custom Resource Definition (CRD).</li>
  *   <li><b>id</b>: The identifier of the custom resource instance (where applicable).</li>
- *   <li><b>namespace</b>: The Kubernetes namespace in which resources are managed (injected from configuration).</li>
+ *   <li><b>namespace</b>: The Kubernetes namespace in which resources are managed, selected by path prefix or header (see <code>NamespaceService</code>).</li>
  * </ul>
  *
  * <h2>Usage:</h2>
@@ -69,17 +77,21 @@ import org.springframework.web.bind.annotation.RestController;
 @Validated
 public class CustomResourceApi {
 
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+    private static final String MEDIA_TYPE_JSON_PATCH = "application/json-patch+json";
+
     @Autowired
     private CustomResourceService service;
 
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * Retrieve a list of all custom resources of given crdId.
      * The list can be filtered by ids.
      * @param crdId the custom resource definition id
      * @param id the optional list of resource ids
+     * @param filter the optional filter expressions (e.g. status.phase=Running)
      * @param pageable the pagination parameters
      * @return a page containing the list of custom resources
      */
@@ -88,9 +100,10 @@ public class CustomResourceApi {
     public Page<IdAwareCustomResource> findAll(
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(crdId, namespace, id, pageable);
+        return service.findAll(crdId, namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -105,7 +118,7 @@ public class CustomResourceApi {
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String id
     ) {
-        return service.findById(crdId, id, namespace);
+        return service.findById(crdId, id, namespaceService.current());
     }
 
     /**
@@ -122,7 +135,7 @@ public class CustomResourceApi {
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
         @RequestBody IdAwareCustomResource request
     ) {
-        return service.add(crdId, request, namespace);
+        return service.add(crdId, request, namespaceService.current());
     }
 
     /**
@@ -140,7 +153,47 @@ public class CustomResourceApi {
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String id,
         @RequestBody IdAwareCustomResource request
     ) {
-        return service.update(crdId, id, request, namespace);
+        return service.update(crdId, id, request, namespaceService.current());
+    }
+
+    /**
+     * Patch an existing custom resource with a JSON merge patch (RFC 7386).
+     * Requires write access to the specified CRD.
+     * @param crdId the custom resource definition id
+     * @param id the custom resource id
+     * @param resourceVersion the expected resourceVersion of the custom resource, optional
+     * @param patch the merge patch
+     * @return the patched custom resource
+     */
+    @PreAuthorize("@authz.canAccess(#crdId, 'write')")
+    @PatchMapping(value = "/{crdId}/{id}", consumes = MEDIA_TYPE_MERGE_PATCH)
+    public IdAwareCustomResource mergePatch(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String id,
+        @RequestParam(required = false) String resourceVersion,
+        @RequestBody JsonNode patch
+    ) {
+        return service.patch(crdId, id, patch, PatchType.JSON_MERGE, resourceVersion, namespaceService.current());
+    }
+
+    /**
+     * Patch an existing custom resource with a JSON patch (RFC 6902).
+     * Requires write access to the specified CRD.
+     * @param crdId the custom resource definition id
+     * @param id the custom resource id
+     * @param resourceVersion the expected resourceVersion of the custom resource, optional
+     * @param patch the list of patch operations
+     * @return the patched custom resource
+     */
+    @PreAuthorize("@authz.canAccess(#crdId, 'write')")
+    @PatchMapping(value = "/{crdId}/{id}", consumes = MEDIA_TYPE_JSON_PATCH)
+    public IdAwareCustomResource jsonPatch(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String id,
+        @RequestParam(required = false) String resourceVersion,
+        @RequestBody JsonNode patch
+    ) {
+        return service.patch(crdId, id, patch, PatchType.JSON, resourceVersion, namespaceService.current());
     }
 
     /**
@@ -155,6 +208,22 @@ public class CustomResourceApi {
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
         @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String id
     ) {
-        service.delete(crdId, id, namespace);
+        service.delete(crdId, id, namespaceService.current());
+    }
+
+    /**
+     * Apply multiple create, update and delete operations to the custom resources of the specified CRD.
+     * Requires write access to the specified CRD.
+     * @param crdId the custom resource definition id
+     * @param operations the operations to apply
+     * @return the result of each operation, in the request order
+     */
+    @PreAuthorize("@authz.canAccess(#crdId, 'write')")
+    @PostMapping("/{crdId}/_bulk")
+    public List<BulkResultDTO> bulk(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId,
+        @RequestBody List<BulkOperationDTO> operations
+    ) {
+        return service.bulk(crdId, operations, namespaceService.current());
     }
 }
@@ -12,6 +12,7 @@ import it.smartcommunitylab.dhub.rm.service.CustomResourceDefinitionService;
 import it.smartcommunitylab.dhub.rm.service.CustomResourceSchemaService;
 import jakarta.validation.constraints.Pattern;
 import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -72,6 +73,7 @@ public class CustomResourceDefinitionApi {
  * 
  * @param id Optional collection of CRD IDs to filter the results.
  * @param onlyWithoutSchema If true, filters only CRDs without stored custom schemas.
+ * @param filter Optional filter expressions, e.g. spec.group=example.com.
  * @param pageable Pagination parameters for the request.
  * @return A page containing a list of CRDs matching the criteria.
  */
@@ -80,9 +82,10 @@ public class CustomResourceDefinitionApi {
     public Page<IdAwareCustomResourceDefinition> findAll(
         @RequestParam(required = false) Collection<String> id,
         @RequestParam(required = false) boolean onlyWithoutSchema,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(id, onlyWithoutSchema, pageable);
+        return service.findAll(id, onlyWithoutSchema, filter, pageable);
     }
 
     /**
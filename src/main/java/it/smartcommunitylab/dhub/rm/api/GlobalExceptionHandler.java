@@ -16,6 +16,7 @@ import java.util.NoSuchElementException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -110,6 +111,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponse(ex, HttpStatus.BAD_REQUEST, request);
     }
 
+    /**
+     * Handles OptimisticLockingFailureException by returning a 409 Conflict response.
+     *
+     * @param ex      The OptimisticLockingFailureException that was thrown.
+     * @param request The current web request.
+     * @return ResponseEntity with a 409 status.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    ResponseEntity<Object> optimisticLockingFailureHandler(OptimisticLockingFailureException ex, WebRequest request) {
+        return buildResponse(ex, HttpStatus.CONFLICT, request);
+    }
+
     /**
      * Handles AccessDeniedException by returning a 403 Forbidden response.
      *
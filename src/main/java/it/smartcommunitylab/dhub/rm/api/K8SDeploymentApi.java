@@ -4,13 +4,15 @@
 
 package it.smartcommunitylab.dhub.rm.api;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,13 +20,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.service.K8SDeploymentService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 /**
  * API for managing K8S Deployment resources.
@@ -44,15 +50,16 @@ public class K8SDeploymentApi {
     private K8SDeploymentService service;
 
     /**
-     * Namespace for K8S resources.
+     * Namespace of the request.
      */
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * List K8S Deployment resources matching given criteria.
      *
      * @param id optional list of IDs for filtering
+     * @param filter optional filter expressions
      * @param pageable pagination params
      * @return list of K8S Deployment resources
      */
@@ -60,9 +67,10 @@ public class K8SDeploymentApi {
     @GetMapping
     public Page<IdAwareResource<Deployment>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -74,19 +82,49 @@ public class K8SDeploymentApi {
     @PreAuthorize("@authz.canAccess('k8s_deployment', 'read')")
     @GetMapping("/{deploymentId}")
     public IdAwareResource<Deployment> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String deploymentId) {
-        return service.findById(namespace, deploymentId);
+        return service.findById(namespaceService.current(), deploymentId);
     }
 
     /**
      * Get log for given K8S Deployment resource.
      *
      * @param deploymentId ID of the resource
+     * @param tailLines number of lines from the end of the log (1000 by default)
+     * @param sinceSeconds read only the log of the last seconds
+     * @param limitBytes maximum number of bytes to read (1MB by default)
      * @return list of log lines
      */
     @PreAuthorize("@authz.canAccess('k8s_deployment', 'read')")
     @GetMapping("/{deploymentId}/log")
-    public List<String>  getLog(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String deploymentId) {
-        return service.getLog(namespace, deploymentId);
+    public List<String> getLog(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String deploymentId,
+        @RequestParam(defaultValue = "${kubernetes.logs.tail-lines:1000}") @PositiveOrZero Integer tailLines,
+        @RequestParam(required = false) @Positive Integer sinceSeconds,
+        @RequestParam(defaultValue = "${kubernetes.logs.limit-bytes:1048576}") @Positive Integer limitBytes
+    ) {
+        return service.getLog(namespaceService.current(), deploymentId, tailLines, sinceSeconds, limitBytes);
     }
 
+    /**
+     * Stream log for given K8S Deployment resource as plain text.
+     *
+     * @param deploymentId ID of the resource
+     * @param tailLines number of lines from the end of the log
+     * @param sinceSeconds read only the log of the last seconds
+     * @param limitBytes maximum number of bytes to read
+     * @param follow keep streaming new lines as they are written
+     * @return log stream
+     */
+    @PreAuthorize("@authz.canAccess('k8s_deployment', 'read')")
+    @GetMapping(value = "/{deploymentId}/log", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLog(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String deploymentId,
+        @RequestParam(required = false) @PositiveOrZero Integer tailLines,
+        @RequestParam(required = false) @Positive Integer sinceSeconds,
+        @RequestParam(required = false) @Positive Integer limitBytes,
+        @RequestParam(defaultValue = "false") boolean follow
+    ) {
+        InputStream in = service.streamLog(namespaceService.current(), deploymentId, tailLines, sinceSeconds, limitBytes, follow);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(LogStreams.stream(in));
+    }
 }
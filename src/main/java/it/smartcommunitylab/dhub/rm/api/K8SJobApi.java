@@ -4,13 +4,15 @@
 
 package it.smartcommunitylab.dhub.rm.api;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,13 +21,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.fabric8.kubernetes.api.model.batch.v1.Job;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.service.K8SJobService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 /**
  * API for K8S Job
@@ -50,16 +56,18 @@ public class K8SJobApi {
     private K8SJobService service;
 
     /**
-     * K8S namespace
+     * Namespace of the request
      */
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * Get the list of all K8S Job
      * 
      * @param id
      *            the id of the K8S Job
+     * @param filter
+     *            the filter expressions, e.g. status.succeeded=1
      * @param pageable
      *            the pagination information
      * @return the list of K8S Job
@@ -68,9 +76,10 @@ public class K8SJobApi {
     @GetMapping
     public Page<IdAwareResource<Job>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -83,7 +92,7 @@ public class K8SJobApi {
     @PreAuthorize("@authz.canAccess('k8s_job', 'read')")
     @GetMapping("/{jobId}")
     public IdAwareResource<Job> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String jobId) {
-        return service.findById(namespace, jobId);
+        return service.findById(namespaceService.current(), jobId);
     }
 
     /**
@@ -91,12 +100,51 @@ public class K8SJobApi {
      * 
      * @param jobId
      *            the id of the K8S Job
+     * @param tailLines
+     *            the number of lines to read from the end of the log (1000 by default)
+     * @param sinceSeconds
+     *            read only the log of the last seconds
+     * @param limitBytes
+     *            the maximum number of bytes to read (1MB by default)
      * @return the log of the K8S Job
      */
     @PreAuthorize("@authz.canAccess('k8s_job', 'read')")
     @GetMapping("/{jobId}/log")
-    public List<String> getLog(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String jobId) {
-        return service.getLog(namespace, jobId);
+    public List<String> getLog(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String jobId,
+        @RequestParam(defaultValue = "${kubernetes.logs.tail-lines:1000}") @PositiveOrZero Integer tailLines,
+        @RequestParam(required = false) @Positive Integer sinceSeconds,
+        @RequestParam(defaultValue = "${kubernetes.logs.limit-bytes:1048576}") @Positive Integer limitBytes
+    ) {
+        return service.getLog(namespaceService.current(), jobId, tailLines, sinceSeconds, limitBytes);
+    }
+
+    /**
+     * Stream the log of a K8S Job as plain text
+     * 
+     * @param jobId
+     *            the id of the K8S Job
+     * @param tailLines
+     *            the number of lines to read from the end of the log
+     * @param sinceSeconds
+     *            read only the log of the last seconds
+     * @param limitBytes
+     *            the maximum number of bytes to read
+     * @param follow
+     *            keep streaming new lines as they are written
+     * @return the log of the K8S Job
+     */
+    @PreAuthorize("@authz.canAccess('k8s_job', 'read')")
+    @GetMapping(value = "/{jobId}/log", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLog(
+        @PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String jobId,
+        @RequestParam(required = false) @PositiveOrZero Integer tailLines,
+        @RequestParam(required = false) @Positive Integer sinceSeconds,
+        @RequestParam(required = false) @Positive Integer limitBytes,
+        @RequestParam(defaultValue = "false") boolean follow
+    ) {
+        InputStream in = service.streamLog(namespaceService.current(), jobId, tailLines, sinceSeconds, limitBytes, follow);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(LogStreams.stream(in));
     }
 
     /**
@@ -108,6 +156,6 @@ public class K8SJobApi {
     @PreAuthorize("@authz.canAccess('k8s_job', 'write')")
     @DeleteMapping("/{jobId}")
     public void delete(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String jobId) {
-        service.delete(namespace, jobId);
+        service.delete(namespaceService.current(), jobId);
     }
 }
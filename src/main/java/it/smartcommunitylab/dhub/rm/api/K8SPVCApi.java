@@ -5,9 +5,9 @@
 package it.smartcommunitylab.dhub.rm.api;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -29,6 +29,7 @@ import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.model.dto.PersistentVolumeClaimDTO;
 import it.smartcommunitylab.dhub.rm.service.K8SPVCService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 
@@ -50,14 +51,15 @@ public class K8SPVCApi {
     private K8SPVCService service;
     
     /**
-     * Namespace to use for all operations
+     * Namespace of the request
      */
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * List all PVCs
      * @param id
+     * @param filter
      * @param pageable
      * @return
      */
@@ -65,9 +67,10 @@ public class K8SPVCApi {
     @GetMapping("/k8s_pvc")
     public Page<IdAwareResource<PersistentVolumeClaim>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -78,7 +81,7 @@ public class K8SPVCApi {
     @PreAuthorize("@authz.canAccess('k8s_pvc', 'read')")
     @GetMapping("/k8s_pvc/{pvcId}")
     public IdAwareResource<PersistentVolumeClaim> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String pvcId) {
-        return service.findById(namespace, pvcId);
+        return service.findById(namespaceService.current(), pvcId);
     }
 
     /**
@@ -91,7 +94,7 @@ public class K8SPVCApi {
     public IdAwareResource<PersistentVolumeClaim> add(
         @Valid @RequestBody PersistentVolumeClaimDTO request
     ) {
-        return service.add(namespace, request);
+        return service.add(namespaceService.current(), request);
     }
 
     /**
@@ -101,7 +104,7 @@ public class K8SPVCApi {
     @PreAuthorize("@authz.canAccess('k8s_pvc', 'write')")
     @DeleteMapping("/k8s_pvc/{pvcId}")
     public void delete(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String pvcId) {
-        service.delete(namespace, pvcId);
+        service.delete(namespaceService.current(), pvcId);
     }
 
     
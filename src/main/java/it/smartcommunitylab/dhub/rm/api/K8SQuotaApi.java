@@ -5,8 +5,8 @@
 package it.smartcommunitylab.dhub.rm.api;
 
 import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,6 +22,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.service.K8SQuotaService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.constraints.Pattern;
 
 /**
@@ -43,15 +44,16 @@ public class K8SQuotaApi {
     private K8SQuotaService service;
     
     /**
-     * Default namespace for k8s resources
+     * Namespace of the request
      */
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * List K8S Quota resources matching given criteria.
      * 
      * @param id optional list of IDs for filtering
+     * @param filter optional filter expressions
      * @param pageable pagination params
      * @return list of K8S Quota resources
      */
@@ -59,9 +61,10 @@ public class K8SQuotaApi {
     @GetMapping
     public Page<IdAwareResource<ResourceQuota>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -73,6 +76,6 @@ public class K8SQuotaApi {
     @PreAuthorize("@authz.canAccess('k8s_quota', 'read')")
     @GetMapping("/{quotaId}")
     public IdAwareResource<ResourceQuota> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String quotaId) {
-        return service.findById(namespace, quotaId);
+        return service.findById(namespaceService.current(), quotaId);
     }
 }
@@ -5,11 +5,11 @@
 package it.smartcommunitylab.dhub.rm.api;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Collections;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,6 +29,7 @@ import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.model.dto.SecretDTO;
 import it.smartcommunitylab.dhub.rm.service.K8SSecretService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 
@@ -51,13 +52,14 @@ public class K8SSecretApi {
     @Autowired
     private K8SSecretService service;
 
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * List K8S Secret
      * 
      * @param id list of secret id to filter. If null, all secrets will be returned
+     * @param filter filter expressions, e.g. metadata.name^=db-
      * @param pageable pagination parameters
      * @return a page of K8S Secret
      */
@@ -65,9 +67,10 @@ public class K8SSecretApi {
     @GetMapping("/k8s_secret")
     public Page<IdAwareResource<Secret>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -79,7 +82,7 @@ public class K8SSecretApi {
     @PreAuthorize("@authz.canAccess('k8s_secret', 'read')")
     @GetMapping("/k8s_secret/{secretId}")
     public IdAwareResource<Secret> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String secretId) {
-        return service.findById(namespace, secretId);
+        return service.findById(namespaceService.current(), secretId);
     }
 
     /**
@@ -91,7 +94,7 @@ public class K8SSecretApi {
     @PreAuthorize("@authz.canAccess('k8s_secret', 'write')")
     @DeleteMapping("/k8s_secret/{secretId}")
     public void delete(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String secretId) {
-        service.delete(namespace, secretId);
+        service.delete(namespaceService.current(), secretId);
     }
 
     /**
@@ -103,7 +106,7 @@ public class K8SSecretApi {
     @PreAuthorize("@authz.canAccess('k8s_secret', 'write')")
     @PostMapping("/k8s_secret")
     public IdAwareResource<Secret> add(@RequestBody @Valid SecretDTO secret) {
-        return service.add(namespace, secret);
+        return service.add(namespaceService.current(), secret);
     }
 
     /**
@@ -116,7 +119,7 @@ public class K8SSecretApi {
     @PreAuthorize("@authz.canAccess('k8s_secret', 'read')")
     @GetMapping("/k8s_secret/{secretId}/decode/{key:.*}")
     public Map<String, String> decodeSecret(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String secretId, @PathVariable String key) {
-        return Collections.singletonMap(key,  service.decode(namespace, secretId, key));
+        return Collections.singletonMap(key,  service.decode(namespaceService.current(), secretId, key));
     }
 
 }
@@ -5,8 +5,8 @@
 package it.smartcommunitylab.dhub.rm.api;
 
 import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,6 +22,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.service.K8SSvcService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
 import jakarta.validation.constraints.Pattern;
 
 /**
@@ -46,13 +47,14 @@ public class K8SServiceApi {
     @Autowired
     private K8SSvcService service;
     
-    @Value("${kubernetes.namespace}")
-    private String namespace;
+    @Autowired
+    private NamespaceService namespaceService;
 
     /**
      * List all K8S Service resources.
      * 
      * @param id optional list of IDs for filtering
+     * @param filter optional filter expressions
      * @param pageable pagination parameters
      * @return a page of K8S Service resources
      */
@@ -60,9 +62,10 @@ public class K8SServiceApi {
     @GetMapping
     public Page<IdAwareResource<Service>> findAll(
         @RequestParam(required = false) Collection<String> id,
+        @RequestParam(required = false) List<String> filter,
         Pageable pageable
     ) {
-        return service.findAll(namespace, id, pageable);
+        return service.findAll(namespaceService.current(), id, filter, pageable);
     }
 
     /**
@@ -74,6 +77,6 @@ public class K8SServiceApi {
     @PreAuthorize("@authz.canAccess('k8s_service', 'read')")
     @GetMapping("/{serviceId}")
     public IdAwareResource<Service> findById(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CR_ID) String serviceId) {
-        return service.findById(namespace, serviceId);
+        return service.findById(namespaceService.current(), serviceId);
     }
 }
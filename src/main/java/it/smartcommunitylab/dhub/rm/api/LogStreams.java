@@ -0,0 +1,36 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.api;
+
+import java.io.InputStream;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Helpers to write the logs of pod controllers (jobs, deployments) as streamed responses.
+ */
+final class LogStreams {
+
+    private LogStreams() {}
+
+    /**
+     * Copy the log stream to the response, flushing as data arrives.
+     * The log stream is closed when completed or when the client disconnects.
+     * @param in
+     * @return
+     */
+    static StreamingResponseBody stream(InputStream in) {
+        return out -> {
+            try (in) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                    out.flush();
+                }
+            }
+        };
+    }
+}
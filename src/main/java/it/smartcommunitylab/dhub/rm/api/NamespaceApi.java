@@ -0,0 +1,59 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.api;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import it.smartcommunitylab.dhub.rm.SystemKeys;
+import it.smartcommunitylab.dhub.rm.service.AccessControlService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * API to get the namespaces managed by the instance.
+ *
+ * <p>
+ * Requests select the namespace with the <code>/namespaces/{namespace}</code> path prefix
+ * or the <code>X-Namespace</code> header, the default namespace is used otherwise.
+ * </p>
+ */
+@RestController
+@PreAuthorize("hasAuthority('ROLE_USER')")
+@SecurityRequirement(name = "basicAuth")
+@SecurityRequirement(name = "jwtAuth")
+@RequestMapping(SystemKeys.API_PATH + SystemKeys.NAMESPACE_PATH)
+@Validated
+public class NamespaceApi {
+
+    /**
+     * The namespace service.
+     */
+    @Autowired
+    private NamespaceService service;
+
+    /**
+     * The access control service.
+     */
+    @Autowired
+    private AccessControlService authz;
+
+    /**
+     * Get the managed namespaces where the user has a role.
+     *
+     * @return the namespace names, sorted.
+     */
+    @GetMapping
+    public Set<String> getNamespaces() {
+        return service.findAll().stream().filter(authz::canAccessNamespace).collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,157 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.api;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import it.smartcommunitylab.dhub.rm.SystemKeys;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
+import it.smartcommunitylab.dhub.rm.service.ResourceEventService;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * API for resource change notifications.
+ *
+ * <p>
+ * Each endpoint streams Server-Sent Events named ADDED, MODIFIED or DELETED, whose data identifies the changed
+ * resource (id and resourceVersion). Clients fetch the resources they need.
+ * </p>
+ */
+@RestController
+@SecurityRequirement(name = "basicAuth")
+@SecurityRequirement(name = "jwtAuth")
+@RequestMapping(SystemKeys.API_PATH)
+@Validated
+public class ResourceEventApi {
+
+    private static final long HEARTBEAT_SEC = 30;
+
+    @Autowired
+    private ResourceEventService service;
+
+    @Autowired
+    private NamespaceService namespaceService;
+
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+
+    // keep connections alive through proxies and detect closed clients
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ResourceEventApi() {
+        heartbeat.scheduleWithFixedDelay(this::ping, HEARTBEAT_SEC, HEARTBEAT_SEC, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stream the changes of the custom resources of the CRD
+     * @param crdId the custom resource definition id
+     * @return the event stream
+     */
+    @PreAuthorize("@authz.canAccess(#crdId, 'list')")
+    @GetMapping(value = "/{crdId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter crEvents(@PathVariable @Pattern(regexp = SystemKeys.REGEX_CRD_ID) String crdId) {
+        return open(crdId);
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_job', 'list')")
+    @GetMapping(value = "/k8s_job/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter jobEvents() {
+        return open("k8s_job");
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_deployment', 'list')")
+    @GetMapping(value = "/k8s_deployment/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter deploymentEvents() {
+        return open("k8s_deployment");
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_secret', 'list')")
+    @GetMapping(value = "/k8s_secret/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter secretEvents() {
+        return open("k8s_secret");
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_pvc', 'list')")
+    @GetMapping(value = "/k8s_pvc/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter pvcEvents() {
+        return open("k8s_pvc");
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_service', 'list')")
+    @GetMapping(value = "/k8s_service/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter serviceEvents() {
+        return open("k8s_service");
+    }
+
+    @PreAuthorize("@authz.canAccess('k8s_quota', 'list')")
+    @GetMapping(value = "/k8s_quota/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter quotaEvents() {
+        return open("k8s_quota");
+    }
+
+    private SseEmitter open(String resource) {
+        // default async request timeout, clients reconnect
+        SseEmitter emitter = new SseEmitter();
+        Runnable unsubscribe = service.subscribe(
+            resource,
+            namespaceService.current(),
+            event -> {
+                try {
+                    emitter.send(SseEmitter.event().name(event.getType().name()).data(event, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            },
+            // too slow, or no watch: the client reconnects
+            emitter::complete
+        );
+
+        Runnable close = () -> {
+            emitters.remove(emitter);
+            unsubscribe.run();
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> close.run());
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    private void ping() {
+        emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
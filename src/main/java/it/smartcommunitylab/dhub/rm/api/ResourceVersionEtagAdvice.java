@@ -0,0 +1,129 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.api;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResourceDefinition;
+import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
+
+/**
+ * Conditional GET support for K8S resources. A strong ETag is derived from the names and
+ * resource versions of the returned resources (and the page metadata for lists), without serializing the body.
+ * Requests with a matching {@code If-None-Match} get {@code 304 Not Modified} and no body.
+ */
+@ControllerAdvice
+public class ResourceVersionEtagAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        Class<?> type = returnType.getParameterType();
+        return Page.class.isAssignableFrom(type) || isResourceType(type);
+    }
+
+    private static boolean isResourceType(Class<?> type) {
+        return (
+            IdAwareResource.class.isAssignableFrom(type) ||
+            IdAwareCustomResource.class.isAssignableFrom(type) ||
+            IdAwareCustomResourceDefinition.class.isAssignableFrom(type)
+        );
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+        Object body,
+        MethodParameter returnType,
+        MediaType selectedContentType,
+        Class<? extends HttpMessageConverter<?>> selectedConverterType,
+        ServerHttpRequest request,
+        ServerHttpResponse response
+    ) {
+        if (
+            body == null ||
+            !(HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod())) ||
+            !(request instanceof ServletServerHttpRequest) ||
+            !(response instanceof ServletServerHttpResponse)
+        ) {
+            return body;
+        }
+
+        String etag = computeEtag(body, selectedContentType);
+        if (etag == null) {
+            return body;
+        }
+
+        ServletWebRequest webRequest = new ServletWebRequest(
+            ((ServletServerHttpRequest) request).getServletRequest(),
+            ((ServletServerHttpResponse) response).getServletResponse()
+        );
+        if (webRequest.checkNotModified(etag)) {
+            // 304 already set, skip serialization
+            return null;
+        }
+        return body;
+    }
+
+    /**
+     * Compute the ETag of the body
+     * @param body
+     * @param contentType
+     * @return null if the body does not contain only versioned K8S resources
+     */
+    private static String computeEtag(Object body, MediaType contentType) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(String.valueOf(contentType), StandardCharsets.UTF_8);
+
+        if (body instanceof Page<?> page) {
+            hasher.putInt(page.getNumber()).putInt(page.getSize()).putLong(page.getTotalElements());
+            for (Object item : page.getContent()) {
+                if (!putResource(hasher, item)) {
+                    return null;
+                }
+            }
+        } else if (!putResource(hasher, body)) {
+            return null;
+        }
+
+        return "\"" + hasher.hash().toString() + "\"";
+    }
+
+    private static boolean putResource(Hasher hasher, Object item) {
+        HasMetadata resource = null;
+        if (item instanceof IdAwareResource<?> r) {
+            resource = r.getResource();
+        } else if (item instanceof IdAwareCustomResource r) {
+            resource = r.getCr();
+        } else if (item instanceof IdAwareCustomResourceDefinition r) {
+            resource = r.getCrd();
+        }
+        if (resource == null || resource.getMetadata() == null || resource.getMetadata().getResourceVersion() == null) {
+            return false;
+        }
+        hasher
+            .putString(resource.getMetadata().getName(), StandardCharsets.UTF_8)
+            .putChar('/')
+            .putString(resource.getMetadata().getResourceVersion(), StandardCharsets.UTF_8)
+            .putChar(';');
+        return true;
+    }
+}
@@ -12,6 +12,7 @@ import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
@@ -34,16 +35,22 @@ public class AppConfig {
     private String corsOrigins;
 
     @Bean
-    public KubernetesClient kubernetesClient() throws Exception {
+    public KubernetesClient kubernetesClient(MeterRegistry meterRegistry) throws Exception {
+        //record API server calls
+        K8SClientMetrics httpClientFactory = new K8SClientMetrics(meterRegistry);
+
         //support either auto-configuration or explicit config
         if (configPath != null && configPath.exists()) {
             String kubeconfigContents = Files.readString(Paths.get(configPath.getURL().toURI()));
-            return new KubernetesClientBuilder().withConfig(Config.fromKubeconfig(kubeconfigContents)).build();
+            return new KubernetesClientBuilder()
+                .withConfig(Config.fromKubeconfig(kubeconfigContents))
+                .withHttpClientFactory(httpClientFactory)
+                .build();
         }
 
         Config config = new ConfigBuilder().withNamespace(namespace).build();
 
-        return new KubernetesClientBuilder().withConfig(config).build();
+        return new KubernetesClientBuilder().withConfig(config).withHttpClientFactory(httpClientFactory).build();
     }
 
     @Bean
@@ -0,0 +1,113 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.config;
+
+import io.fabric8.kubernetes.client.okhttp.OkHttpClientFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+
+/**
+ * HTTP client factory for the K8S client recording a timer for each call to the API server,
+ * tagged by verb (get, list, watch, create, update, patch, delete), resource and outcome.
+ */
+public class K8SClientMetrics extends OkHttpClientFactory {
+
+    public static final String METRIC_NAME = "krm.k8s.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public K8SClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void additionalConfig(OkHttpClient.Builder builder) {
+        builder.addInterceptor(this::intercept);
+    }
+
+    private Response intercept(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "UNKNOWN";
+        try {
+            Response response = chain.proceed(request);
+            outcome = Outcome.forStatus(response.code()).name();
+            return response;
+        } catch (IOException e) {
+            outcome = "IO_ERROR";
+            throw e;
+        } finally {
+            String[] target = parse(request.url().encodedPath());
+            String verb = verb(request, target[1] != null);
+            sample.stop(
+                Timer
+                    .builder(METRIC_NAME)
+                    .description("K8S API server calls")
+                    .tags("verb", verb, "resource", target[0], "outcome", outcome)
+                    .register(meterRegistry)
+            );
+        }
+    }
+
+    private static String verb(Request request, boolean named) {
+        switch (request.method()) {
+            case "GET":
+                if ("true".equals(request.url().queryParameter("watch"))) {
+                    return "watch";
+                }
+                return named ? "get" : "list";
+            case "POST":
+                return "create";
+            case "PUT":
+                return "update";
+            case "PATCH":
+                return "patch";
+            case "DELETE":
+                return "delete";
+            default:
+                return request.method().toLowerCase();
+        }
+    }
+
+    /**
+     * Extract the resource (plural[.group][/subresource]) and the name from an API path,
+     * e.g. /apis/apps/v1/namespaces/ns/deployments/name/scale
+     * @param path
+     * @return resource and name (null for collections)
+     */
+    static String[] parse(String path) {
+        String[] segments = path.split("/");
+        int i;
+        String group = null;
+        if (segments.length > 2 && "api".equals(segments[1])) {
+            i = 3;
+        } else if (segments.length > 3 && "apis".equals(segments[1])) {
+            group = segments[2];
+            i = 4;
+        } else {
+            return new String[] { "other", null };
+        }
+
+        if (segments.length > i + 2 && "namespaces".equals(segments[i])) {
+            i += 2;
+        }
+        if (segments.length <= i) {
+            return new String[] { "discovery", null };
+        }
+
+        String resource = group != null ? segments[i] + "." + group : segments[i];
+        String name = segments.length > i + 1 ? segments[i + 1] : null;
+        if (segments.length > i + 2) {
+            resource = resource + "/" + segments[i + 2];
+        }
+        return new String[] { resource, name };
+    }
+}
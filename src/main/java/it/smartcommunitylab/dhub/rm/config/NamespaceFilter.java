@@ -0,0 +1,93 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.config;
+
+import it.smartcommunitylab.dhub.rm.SystemKeys;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Select the namespace of API requests. Requests to {@code /api/namespaces/{namespace}/...} are
+ * dispatched as {@code /api/...}, otherwise the {@code X-Namespace} header is used.
+ * The requested namespace is stored in the {@link NamespaceService#ATTRIBUTE} attribute, and checked by
+ * {@link NamespaceService#current()}.
+ */
+public class NamespaceFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = SystemKeys.API_PATH + SystemKeys.NAMESPACE_PATH + "/";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        // path within the application: servlet path for the default servlet mapping, path info otherwise
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        String path = servletPath + (pathInfo != null ? pathInfo : "");
+        if (path.startsWith(PREFIX)) {
+            int end = path.indexOf('/', PREFIX.length());
+            if (end > PREFIX.length()) {
+                request.setAttribute(NamespaceService.ATTRIBUTE, path.substring(PREFIX.length(), end));
+                String rewritten = SystemKeys.API_PATH + path.substring(end);
+                RewrittenRequest wrapped = servletPath.isEmpty()
+                    ? new RewrittenRequest(request, rewritten, "", rewritten)
+                    : new RewrittenRequest(request, rewritten, rewritten, null);
+                filterChain.doFilter(wrapped, response);
+                return;
+            }
+        }
+
+        String header = request.getHeader(SystemKeys.NAMESPACE_HEADER);
+        if (StringUtils.hasText(header)) {
+            request.setAttribute(NamespaceService.ATTRIBUTE, header.trim());
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Request with the namespace prefix removed from the path
+     */
+    private static class RewrittenRequest extends HttpServletRequestWrapper {
+
+        private final String path;
+        private final String servletPath;
+        private final String pathInfo;
+
+        RewrittenRequest(HttpServletRequest request, String path, String servletPath, String pathInfo) {
+            super(request);
+            this.path = path;
+            this.servletPath = servletPath;
+            this.pathInfo = pathInfo;
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return pathInfo;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return getContextPath() + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer();
+            url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort());
+            return url.append(getRequestURI());
+        }
+    }
+}
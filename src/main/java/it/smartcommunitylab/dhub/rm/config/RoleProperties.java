@@ -26,6 +26,8 @@ public class RoleProperties {
     public static class RoleConfig {
         private String role;
         private List<String> resources;
+        // namespaces where the role applies, '*' for all the managed ones. Default namespace only when empty
+        private List<String> namespaces;
 
         public String getRole() {
             return role;
@@ -39,5 +41,11 @@ public class RoleProperties {
         public void setResources(List<String> resources) {
             this.resources = resources;
         }
+        public List<String> getNamespaces() {
+            return namespaces;
+        }
+        public void setNamespaces(List<String> namespaces) {
+            this.namespaces = namespaces;
+        }
     }
 }
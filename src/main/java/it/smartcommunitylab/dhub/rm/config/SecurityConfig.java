@@ -188,12 +188,12 @@ public class SecurityConfig {
         config.setAllowedOriginPatterns(new ArrayList<>(StringUtils.commaDelimitedListToSet(origins)));
         config.setAllowedMethods(
             Stream
-                .of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS)
+                .of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE, HttpMethod.OPTIONS)
                 .map(HttpMethod::name)
                 .collect(Collectors.toList())
         );
 
-        config.setAllowedHeaders(Arrays.asList(HttpHeaders.CONTENT_TYPE, HttpHeaders.AUTHORIZATION, HttpHeaders.RANGE));
+        config.setAllowedHeaders(Arrays.asList(HttpHeaders.CONTENT_TYPE, HttpHeaders.AUTHORIZATION, HttpHeaders.RANGE, SystemKeys.NAMESPACE_HEADER));
 
         config.setExposedHeaders(Arrays.asList(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, HttpHeaders.CONTENT_RANGE));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -6,17 +6,22 @@ package it.smartcommunitylab.dhub.rm.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
+import jakarta.annotation.PreDestroy;
 import java.util.Arrays;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -34,6 +39,18 @@ public class WebConfig implements WebMvcConfigurer {
         return filter;
     }
 
+    /*
+     * Namespace selection, before security so that API paths are matched without the namespace prefix
+     */
+    @Bean
+    FilterRegistrationBean<NamespaceFilter> namespaceFilter() {
+        FilterRegistrationBean<NamespaceFilter> filter = new FilterRegistrationBean<>();
+        filter.setFilter(new NamespaceFilter());
+        filter.addUrlPatterns(SystemKeys.API_PATH + "/*");
+        filter.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return filter;
+    }
+
     /*
      * Static console resolvers for webpack style
      */
@@ -69,6 +86,33 @@ public class WebConfig implements WebMvcConfigurer {
         //     );
     }
 
+    /*
+     * Dedicated threads for streamed responses (e.g. followed logs), which may stay open for long:
+     * requests are not queued behind them but rejected when all the threads are busy
+     */
+    @Value("${application.async-max-threads:64}")
+    private int asyncMaxThreads;
+
+    private ThreadPoolTaskExecutor asyncExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        asyncExecutor = new ThreadPoolTaskExecutor();
+        asyncExecutor.setCorePoolSize(0);
+        asyncExecutor.setMaxPoolSize(asyncMaxThreads);
+        asyncExecutor.setQueueCapacity(0);
+        asyncExecutor.setThreadNamePrefix("krm-async-");
+        asyncExecutor.initialize();
+        configurer.setTaskExecutor(asyncExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+        }
+    }
+
     @Override
     public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
         // configure a sane path mapping by disabling content negotiation via extensions
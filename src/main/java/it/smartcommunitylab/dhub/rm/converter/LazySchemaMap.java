@@ -0,0 +1,115 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.converter;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schema map backed by its stored representation, decoded on first access. Entities loaded only to read
+ * their ids or to be copied by the persistence context do not pay for the decoding.
+ */
+public final class LazySchemaMap extends AbstractMap<String, Serializable> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] data;
+    private transient volatile Map<String, Serializable> map;
+
+    LazySchemaMap(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Wrap a schema stored as JSON text
+     * @param json
+     * @return
+     */
+    public static LazySchemaMap fromJson(String json) {
+        return new LazySchemaMap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, Serializable> map() {
+        Map<String, Serializable> m = map;
+        if (m == null) {
+            synchronized (this) {
+                m = map;
+                if (m == null) {
+                    m = SchemaDataConverter.decode(data);
+                    map = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * @return true if the map has not been decoded, so the stored representation is still current
+     */
+    boolean isEncoded() {
+        return map == null;
+    }
+
+    boolean isSmile() {
+        return data.length > 0 && data[0] == SchemaDataConverter.SMILE_DEFLATE;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public Set<Entry<String, Serializable>> entrySet() {
+        return map().entrySet();
+    }
+
+    @Override
+    public Serializable get(Object key) {
+        return map().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public Serializable put(String key, Serializable value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public Serializable remove(Object key) {
+        return map().remove(key);
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LazySchemaMap other && isEncoded() && other.isEncoded() && Arrays.equals(data, other.data)) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return map().hashCode();
+    }
+
+    // serialized as a plain map
+    private Object writeReplace() {
+        return new HashMap<>(map());
+    }
+}
@@ -0,0 +1,110 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import it.smartcommunitylab.dhub.rm.exception.ParsingException;
+import jakarta.persistence.AttributeConverter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Binary storage of schema maps. Schemas are written either as Smile compressed with deflate (prefixed by a format byte)
+ * or as plain JSON text, and both are read back regardless of the configured format.
+ * Maps are decoded lazily, on first access (see {@link LazySchemaMap}).
+ */
+public class SchemaDataConverter implements AttributeConverter<Map<String, Serializable>, byte[]> {
+
+    public static final String FORMAT_SMILE = "smile";
+    public static final String FORMAT_JSON = "json";
+
+    static final byte SMILE_DEFLATE = 0x02;
+
+    private static final ObjectMapper jsonMapper = new ObjectMapper();
+    private static final ObjectMapper smileMapper = new SmileMapper();
+    private static final MapType typeRef = jsonMapper
+        .getTypeFactory()
+        .constructMapType(Map.class, String.class, Serializable.class);
+
+    // instantiated by the JPA provider through the Spring bean container
+    @Value("${kubernetes.crd.schema-storage:" + FORMAT_SMILE + "}")
+    private String format = FORMAT_SMILE;
+
+    public SchemaDataConverter() {}
+
+    SchemaDataConverter(String format) {
+        this.format = format;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(Map<String, Serializable> map) {
+        if (map == null) {
+            return null;
+        }
+        boolean smile = !FORMAT_JSON.equals(format);
+        if (map instanceof LazySchemaMap lazy && lazy.isEncoded() && lazy.isSmile() == smile) {
+            // unchanged: no need to decode and encode again
+            return lazy.getData();
+        }
+        return smile ? encodeSmile(map) : encodeJson(map);
+    }
+
+    @Override
+    public Map<String, Serializable> convertToEntityAttribute(byte[] data) {
+        return data != null ? new LazySchemaMap(data) : null;
+    }
+
+    /**
+     * Write a schema as JSON text, as stored by previous versions
+     * @param map
+     * @return
+     */
+    public static String toJson(Map<String, Serializable> map) {
+        return new String(encodeJson(map), StandardCharsets.UTF_8);
+    }
+
+    static byte[] encodeJson(Map<String, Serializable> map) {
+        try {
+            return jsonMapper.writeValueAsBytes(map);
+        } catch (final JsonProcessingException e) {
+            throw new ParsingException("Parsing failed: " + e.getMessage());
+        }
+    }
+
+    static byte[] encodeSmile(Map<String, Serializable> map) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(SMILE_DEFLATE);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION))) {
+            smileMapper.writeValue(deflater, map);
+        } catch (final IOException e) {
+            throw new ParsingException("Parsing failed: " + e.getMessage());
+        }
+        return out.toByteArray();
+    }
+
+    static Map<String, Serializable> decode(byte[] data) {
+        try {
+            if (data.length > 0 && data[0] == SMILE_DEFLATE) {
+                InputStream in = new InflaterInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+                return smileMapper.readValue(in, typeRef);
+            }
+            return jsonMapper.readValue(data, typeRef);
+        } catch (final IOException e) {
+            throw new ParsingException("Parsing failed: " + e.getMessage());
+        }
+    }
+}
@@ -4,13 +4,16 @@
 
 package it.smartcommunitylab.dhub.rm.model;
 
-import it.smartcommunitylab.dhub.rm.converter.MapConverter;
+import it.smartcommunitylab.dhub.rm.converter.LazySchemaMap;
+import it.smartcommunitylab.dhub.rm.converter.SchemaDataConverter;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.UniqueConstraint;
 import java.io.Serializable;
 import java.util.Map;
@@ -28,11 +31,21 @@ public class CustomResourceSchema {
     @Column(nullable = false)
     private String version;
 
+    // JSON text written by previous versions, read only when the binary column is empty.
+    // Cleared when the row is converted to the binary column
     @Lob
     @Column(name = "crd_schema")
-    @Convert(converter = MapConverter.class)
+    private String legacySchema;
+
+    @Lob
+    @Column(name = "crd_schema_data")
+    @Convert(converter = SchemaDataConverter.class)
     private Map<String, Serializable> schema;
 
+    // identifies the source of the schema content, not persisted
+    @Transient
+    private String revision;
+
     public String getId() {
         return id;
     }
@@ -64,4 +77,28 @@ public class CustomResourceSchema {
     public void setSchema(Map<String, Serializable> schema) {
         this.schema = schema;
     }
+
+    public String getLegacySchema() {
+        return legacySchema;
+    }
+
+    public void setLegacySchema(String legacySchema) {
+        this.legacySchema = legacySchema;
+    }
+
+    @PostLoad
+    void readLegacySchema() {
+        // rows not converted yet
+        if (schema == null && legacySchema != null) {
+            schema = LazySchemaMap.fromJson(legacySchema);
+        }
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
 }
@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.model;
+
+/**
+ * Change notification for a K8S resource. Only identifies the resource, clients fetch it if needed.
+ */
+public class ResourceEvent {
+
+    public enum EVENT_TYPE {ADDED, MODIFIED, DELETED}
+
+    private EVENT_TYPE type;
+    private String id;
+    private String resourceVersion;
+
+    protected ResourceEvent() {}
+
+    public ResourceEvent(EVENT_TYPE type, String id, String resourceVersion) {
+        this.type = type;
+        this.id = id;
+        this.resourceVersion = resourceVersion;
+    }
+
+    public EVENT_TYPE getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+}
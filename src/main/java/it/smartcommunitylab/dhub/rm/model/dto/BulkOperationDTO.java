@@ -0,0 +1,39 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.model.dto;
+
+import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+
+/**
+ * Single operation of a bulk request over CRs. Create and update require the resource,
+ * update and delete require the id (for create it is taken from the resource).
+ */
+public class BulkOperationDTO {
+
+    public enum BULK_OP {create, update, delete};
+
+    private BULK_OP op;
+    private String id;
+    private IdAwareCustomResource resource;
+
+    public BULK_OP getOp() {
+        return op;
+    }
+    public void setOp(BULK_OP op) {
+        this.op = op;
+    }
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+    public IdAwareCustomResource getResource() {
+        return resource;
+    }
+    public void setResource(IdAwareCustomResource resource) {
+        this.resource = resource;
+    }
+}
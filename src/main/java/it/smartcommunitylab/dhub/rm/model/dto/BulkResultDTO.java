@@ -0,0 +1,62 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO.BULK_OP;
+
+/**
+ * Outcome of a single operation of a bulk request: HTTP-like status, error message on failure
+ * and the resulting resource for successful creations and updates.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDTO {
+
+    private BULK_OP op;
+    private String id;
+    private int status;
+    private String message;
+    private IdAwareCustomResource resource;
+
+    public BulkResultDTO() {}
+
+    public BulkResultDTO(BULK_OP op, String id, int status) {
+        this.op = op;
+        this.id = id;
+        this.status = status;
+    }
+
+    public BULK_OP getOp() {
+        return op;
+    }
+    public void setOp(BULK_OP op) {
+        this.op = op;
+    }
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+    public int getStatus() {
+        return status;
+    }
+    public void setStatus(int status) {
+        this.status = status;
+    }
+    public String getMessage() {
+        return message;
+    }
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    public IdAwareCustomResource getResource() {
+        return resource;
+    }
+    public void setResource(IdAwareCustomResource resource) {
+        this.resource = resource;
+    }
+}
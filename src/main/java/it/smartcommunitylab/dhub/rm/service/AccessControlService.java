@@ -7,6 +7,7 @@ package it.smartcommunitylab.dhub.rm.service;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,11 +15,20 @@ import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 
 import it.smartcommunitylab.dhub.rm.config.AuthenticationProperties;
 import it.smartcommunitylab.dhub.rm.config.RoleProperties;
@@ -26,34 +36,78 @@ import jakarta.annotation.PostConstruct;
 
 /**
  * Role-Based Access Control (RBAC) Service for managing the user access to the
- * different app APIs
+ * different app APIs. Roles apply to the namespaces listed in their configuration,
+ * or to the default namespace only, and decisions are taken for the namespace of the request.
+ * The permissions of the user in the namespace are resolved on the first check of a request and stored in the
+ * {@link #ATTRIBUTE} request attribute, the following checks only read a bitmask.
  */
 @Service("authz")
 public class AccessControlService {
 
     public enum RESOURCE_OP {list, read, write, all}
 
+    /**
+     * Request attribute holding the permissions resolved for the authentication of the request
+     */
+    public static final String ATTRIBUTE = AccessControlService.class.getName() + ".permissions";
+
     @Autowired
     AuthenticationProperties authenticationProperties;
     @Autowired
     RoleProperties roleProperties;
     @Autowired
     private CustomResourceDefinitionService service;
-
-    // role -> resource -> operations
-    private Map<String, Map<String, Set<RESOURCE_OP>>> roleMap = new HashMap<>();
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private StartupTasks startupTasks;
+    @Autowired
+    private NamespaceService namespaceService;
 
     private static final String[] K8S_RESOURCES = new String[]{"k8s_job", "k8s_service", "k8s_deployment", "k8s_secret", "k8s_pvc", "k8s_quota"};
 
+    // resource -> column of the permission table
+    private volatile Map<String, Integer> resourceIndex = Collections.emptyMap();
+    // role -> operation bitmask for each resource column
+    private volatile Map<String, int[]> roleTable = Collections.emptyMap();
+    // role -> namespaces where the role applies, empty for the default namespace only
+    private volatile Map<String, Set<String>> roleNamespaces = Collections.emptyMap();
+    // namespace and granted authorities -> merged permissions of the roles
+    private final Cache<DecisionKey, Permissions> decisions = CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+    // operation -> [denied, granted] decision counters
+    private Counter[][] decisionCounters;
+
+    @PostConstruct
+    public void initMetrics() {
+        GuavaCacheMetrics.monitor(meterRegistry, decisions, "krm.access");
+        decisionCounters = new Counter[RESOURCE_OP.values().length][];
+        for (RESOURCE_OP op : RESOURCE_OP.values()) {
+            decisionCounters[op.ordinal()] = new Counter[] {
+                meterRegistry.counter("krm.access.decisions", "operation", op.name(), "result", "denied"),
+                meterRegistry.counter("krm.access.decisions", "operation", op.name(), "result", "granted"),
+            };
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // wildcards are expanded with the CRD list
+        startupTasks.submit("roles", this::initRoles);
+    }
+
     /**
-     * Pre-build role model. Map role to list of resources and their permissions.
+     * Pre-build role model. Map role to list of resources and their permissions,
+     * then compile it into a table of operation bitmasks.
      */
-    @PostConstruct
     public void initRoles() {
+        // role -> resource -> operations
+        Map<String, Map<String, Integer>> roleMap = new HashMap<>();
+        Map<String, Set<String>> namespaces = new HashMap<>();
         if (roleProperties.getRoles() != null) {
 
             roleProperties.getRoles().forEach(role -> {
                 roleMap.put(role.getRole(), new HashMap<>());
+                namespaces.put(role.getRole(), role.getNamespaces() != null ? Set.copyOf(role.getNamespaces()) : Collections.emptySet());
                 List<String> resources = role.getResources();
                 // each resource has <resource>::<op>  or <resource> syntax with wildcards
                 resources.forEach(res -> {
@@ -70,98 +124,238 @@ public class AccessControlService {
                     }
                     if (rName.equals("*")) {
                         for (String r: getFullResourceList()) {
-                            addRole(roleMap.get(role.getRole()), r, op);
+                            roleMap.get(role.getRole()).put(r, mask(op));
                         }
                     } else {
-                        addRole(roleMap.get(role.getRole()), rName, op);
+                        roleMap.get(role.getRole()).put(rName, mask(op));
                     }
                 });
             });
         }
+
+        // assign a column to each resource
+        Map<String, Integer> index = new HashMap<>();
+        roleMap.values().forEach(m -> m.keySet().forEach(r -> index.putIfAbsent(r, index.size())));
+
+        Map<String, int[]> table = new HashMap<>();
+        roleMap.forEach((role, m) -> {
+            int[] masks = new int[index.size()];
+            m.forEach((r, mask) -> masks[index.get(r)] = mask);
+            table.put(role, masks);
+        });
+
+        resourceIndex = Map.copyOf(index);
+        roleTable = Map.copyOf(table);
+        roleNamespaces = Map.copyOf(namespaces);
+        decisions.invalidateAll();
     }
 
     private Set<String> getFullResourceList() {
         Set<String> set = new HashSet<String>();
         set.addAll(Arrays.asList(K8S_RESOURCES));
-        set.addAll(service.findAll(null, false, PageRequest.ofSize(1000)).getContent().stream().map(r -> r.getId()).toList());
+        set.addAll(service.findAllIds());
         return set;
     }
 
-    private void addRole(Map<String, Set<RESOURCE_OP>> map, String id, RESOURCE_OP op) {
-        Set<RESOURCE_OP> ops = new HashSet<>();
-        map.put(id, ops);
+    /**
+     * Bitmask of the operations implied by the operation
+     * @param op
+     * @return
+     */
+    private static int mask(RESOURCE_OP op) {
+        int mask = 0;
         switch (op) {
-            case all: ops.add(RESOURCE_OP.all); 
-            case write: ops.add(RESOURCE_OP.write);
-            case read: ops.add(RESOURCE_OP.read);
-            case list: ops.add(RESOURCE_OP.list);
+            case all: mask |= bit(RESOURCE_OP.all);
+            case write: mask |= bit(RESOURCE_OP.write);
+            case read: mask |= bit(RESOURCE_OP.read);
+            case list: mask |= bit(RESOURCE_OP.list);
+        }
+        return mask;
+    }
+
+    private static int bit(RESOURCE_OP op) {
+        return 1 << op.ordinal();
+    }
+
+    private boolean isAuthDisabled() {
+        return !authenticationProperties.isBasicAuthEnabled() && !authenticationProperties.isOAuth2Enabled();
+    }
+
+    /**
+     * Authentication of the current user
+     * @return null if not authenticated or without authorities
+     */
+    private Authentication currentAuthentication() {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        if (securityContext == null || securityContext.getAuthentication() == null || securityContext.getAuthentication().getAuthorities() == null || securityContext.getAuthentication().getAuthorities().isEmpty()) return null;
+        return securityContext.getAuthentication();
+    }
+
+    /**
+     * Granted authorities of the current user
+     * @return null if not authenticated or without authorities
+     */
+    private Collection<? extends GrantedAuthority> currentAuthorities() {
+        Authentication authentication = currentAuthentication();
+        return authentication != null ? authentication.getAuthorities() : null;
+    }
+
+    /**
+     * Check if the role applies to the namespace
+     * @param role
+     * @param namespace
+     * @return
+     */
+    private boolean appliesTo(String role, String namespace) {
+        Set<String> namespaces = roleNamespaces.get(role);
+        if (namespaces == null) return false;
+        if (namespaces.isEmpty()) return namespace.equals(namespaceService.getDefaultNamespace());
+        return namespaces.contains("*") || namespaces.contains(namespace);
+    }
+
+    /**
+     * Merged permissions in the namespace for the set of authorities, compiled on first use
+     * @param authorities
+     * @param namespace
+     * @return
+     */
+    private Permissions permissions(Collection<? extends GrantedAuthority> authorities, String namespace) {
+        Permissions permissions = decisions.getIfPresent(new DecisionKey(namespace, authorities));
+        if (permissions == null) {
+            int[] masks = new int[resourceIndex.size()];
+            for (GrantedAuthority a : authorities) {
+                int[] roleMasks = roleTable.get(a.getAuthority());
+                if (roleMasks != null && appliesTo(a.getAuthority(), namespace)) {
+                    for (int i = 0; i < masks.length; i++) {
+                        masks[i] |= roleMasks[i];
+                    }
+                }
+            }
+            permissions = new Permissions(masks);
+            // copy the key, the authorities collection may not be immutable
+            decisions.put(new DecisionKey(namespace, authorities instanceof List ? List.copyOf(authorities) : Set.copyOf(authorities)), permissions);
+        }
+        return permissions;
+    }
+
+    /**
+     * Permissions of the current user in the namespace of the request, resolved once per request and
+     * authentication. Outside of requests they are resolved on each call.
+     * @return null if not authenticated or without authorities
+     */
+    private Permissions currentPermissions() {
+        Authentication authentication = currentAuthentication();
+        if (authentication == null) return null;
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object resolved = attributes != null ? attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) : null;
+        // the roles may be reloaded during the request
+        if (resolved instanceof ResolvedPermissions r && r.authentication == authentication && r.roles == roleTable) {
+            return r.permissions;
         }
-}
+
+        Map<String, int[]> roles = roleTable;
+        Permissions permissions = permissions(authentication.getAuthorities(), namespaceService.current());
+        if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE, new ResolvedPermissions(authentication, roles, permissions), RequestAttributes.SCOPE_REQUEST);
+        }
+        return permissions;
+    }
+
+    /**
+     * Check if the current user has any role in the namespace
+     * @param namespace
+     * @return
+     */
+    public boolean canAccessNamespace(String namespace) {
+        if (isAuthDisabled()) return true;
+
+        Collection<? extends GrantedAuthority> authorities = currentAuthorities();
+        if (authorities == null) return false;
+        return authorities.stream().anyMatch(a -> roleTable.containsKey(a.getAuthority()) && appliesTo(a.getAuthority(), namespace));
+    }
 
     /**
-     * Check if the current user can access the specified resource for the specific operation
+     * Check if the current user can access the specified resource for the specific operation,
+     * in the namespace of the request
      * @param resource
      * @param op
      * @return
      */
     public boolean canAccess(String resource, RESOURCE_OP op) {
+        boolean granted = decide(resource, op);
+        decisionCounters[op.ordinal()][granted ? 1 : 0].increment();
+        return granted;
+    }
+
+    private boolean decide(String resource, RESOURCE_OP op) {
         // bypass for no auth scenario
-        if (!authenticationProperties.isBasicAuthEnabled() && !authenticationProperties.isOAuth2Enabled()) return true;
-        
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        if (securityContext == null || securityContext.getAuthentication() == null || securityContext.getAuthentication().getAuthorities() == null || securityContext.getAuthentication().getAuthorities().isEmpty()) return false;
-
-        // check roles - associated resources and wildcards
-        Collection<? extends GrantedAuthority> authorities = securityContext.getAuthentication().getAuthorities();
-        for (GrantedAuthority a : authorities) {
-            if (roleMap.containsKey(a.getAuthority())) {
-                Map<String, Set<RESOURCE_OP>> opMap = roleMap.get(a.getAuthority());
-                // first check explicit
-                if (opMap.containsKey(resource)) {
-                    if (opMap.get(resource).contains(op)) return true;
-                } 
-                else if (opMap.containsKey("*")) {
-                    if (opMap.get("*").contains(op)) return true;
-                }
-            }
-        }
-        return false;
+        if (isAuthDisabled()) return true;
+
+        Permissions permissions = currentPermissions();
+        if (permissions == null) return false;
+
+        // check roles - associated resources, wildcards are expanded at startup
+        Integer column = resourceIndex.get(resource);
+        if (column == null || column >= permissions.masks.length) return false;
+        return (permissions.masks[column] & bit(op)) != 0;
     }
 
     /**
-     * Return map of resource - permissions for the current user given the list of roles of the user
+     * Return map of resource - permissions for the current user given the list of roles of the user,
+     * in the namespace of the request
      * @return
      */
     public Map<String, Set<RESOURCE_OP>> getUserPermissions() {
-        boolean all = !authenticationProperties.isBasicAuthEnabled() && !authenticationProperties.isOAuth2Enabled();
-        if (!all) {
-            SecurityContext securityContext = SecurityContextHolder.getContext();
-            if (securityContext == null || securityContext.getAuthentication() == null || securityContext.getAuthentication().getAuthorities() == null || securityContext.getAuthentication().getAuthorities().isEmpty()) {
+        if (!isAuthDisabled()) {
+            Permissions permissions = currentPermissions();
+            if (permissions == null) {
                 return Collections.emptyMap();
             }
-            Collection<? extends GrantedAuthority> authorities = securityContext.getAuthentication().getAuthorities();
-            Map<String, Set<RESOURCE_OP>> result = new HashMap<>();
-            for (GrantedAuthority a : authorities) {
-                if (roleMap.containsKey(a.getAuthority())) {
-                    for (Map.Entry<String, Set<RESOURCE_OP>> entry : roleMap.get(a.getAuthority()).entrySet()) {
-                        if (!result.containsKey(entry.getKey())) result.put(entry.getKey(), new HashSet<>(entry.getValue()));
-                        else result.put(entry.getKey(), mergeOps(result.get(entry.getKey()), entry.getValue()));
-                    }   
-                }
-            }
-            return result;
+            return permissions.asMap(resourceIndex);
         } else {
             // all permissions for all resources
             Map<String, Set<RESOURCE_OP>> result = new HashMap<>();
             for (String r: getFullResourceList()) {
-                addRole(result, r,  RESOURCE_OP.all);
+                result.put(r, EnumSet.allOf(RESOURCE_OP.class));
             }
             return result;
         }
     }
 
-    private Set<RESOURCE_OP> mergeOps(Set<RESOURCE_OP> dest, Set<RESOURCE_OP> src) {
-        dest.addAll(src);
-        return dest;
+    private record DecisionKey(String namespace, Collection<?> authorities) {}
+
+    /**
+     * Permissions resolved for an authentication with a version of the role model
+     */
+    private record ResolvedPermissions(Authentication authentication, Map<String, int[]> roles, Permissions permissions) {}
+
+    /**
+     * Permissions of a set of authorities: operation bitmask for each resource column
+     */
+    private static final class Permissions {
+        private final int[] masks;
+        private volatile Map<String, Set<RESOURCE_OP>> map;
+
+        Permissions(int[] masks) {
+            this.masks = masks;
+        }
+
+        Map<String, Set<RESOURCE_OP>> asMap(Map<String, Integer> resourceIndex) {
+            if (map == null) {
+                Map<String, Set<RESOURCE_OP>> result = new HashMap<>();
+                resourceIndex.forEach((r, column) -> {
+                    if (masks[column] != 0) {
+                        EnumSet<RESOURCE_OP> ops = EnumSet.noneOf(RESOURCE_OP.class);
+                        for (RESOURCE_OP op : RESOURCE_OP.values()) {
+                            if ((masks[column] & bit(op)) != 0) ops.add(op);
+                        }
+                        result.put(r, Collections.unmodifiableSet(ops));
+                    }
+                });
+                map = Collections.unmodifiableMap(result);
+            }
+            return map;
+        }
     }
 }
@@ -4,7 +4,6 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.MapType;
 import com.google.common.cache.CacheBuilder;
@@ -15,34 +14,43 @@ import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionList;
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinitionVersion;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.model.Scope;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.exception.ParsingException;
 import it.smartcommunitylab.dhub.rm.model.CustomResourceSchema;
 import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResourceDefinition;
 import it.smartcommunitylab.dhub.rm.repository.CustomResourceSchemaRepository;
+import jakarta.annotation.PreDestroy;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.ConcurrentHashMap;
 /**
  * Service for K8S CRD objects
  */
@@ -50,67 +58,153 @@ import java.util.concurrent.ConcurrentHashMap;
 public class CustomResourceDefinitionService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomResourceDefinitionService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final MapType schemaType = objectMapper
+        .getTypeFactory()
+        .constructMapType(Map.class, String.class, Serializable.class);
 
     private final KubernetesClient client;
     private final K8SAuthorizationService authService;
     private final CustomResourceSchemaRepository customResourceSchemaRepository;
-    private ConcurrentHashMap<String, CustomResourceDefinition> crdMap = new ConcurrentHashMap<>();
 
-    // cache the whole list as a single entity
-    private LoadingCache<String, List<CustomResourceDefinition>> crdCache = CacheBuilder.newBuilder()
-        .expireAfterWrite(5, TimeUnit.MINUTES)
+    @Value("${kubernetes.cache.informer:false}")
+    private boolean informerEnabled;
+
+    // immutable snapshot of the CRDs, replaced as a whole on each change
+    private volatile Map<String, CrdEntry> crds = Collections.emptyMap();
+    private SharedIndexInformer<CustomResourceDefinition> informer;
+    private volatile boolean informerSynced = false;
+
+    // cache the whole list as a single entity. Stale snapshot is served while reloading
+    private LoadingCache<String, Map<String, CrdEntry>> crdCache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(5, TimeUnit.MINUTES)
+        .recordStats()
         .build(
-            new CacheLoader<String, List<CustomResourceDefinition>>() {
-                @SuppressWarnings("null")
+            new CacheLoader<String, Map<String, CrdEntry>>() {
                 @Override
-                public List<CustomResourceDefinition> load(String key) throws Exception {
+                public Map<String, CrdEntry> load(String key) throws Exception {
                     CustomResourceDefinitionList crdList = client.apiextensions().v1().customResourceDefinitions().list();
-                    synchronized(crdMap) {
-                        crdMap.clear();
-                        crdList.getItems().forEach(crd -> {
-                            crdMap.put(crd.getMetadata().getName(), crd);
-                        });
-                    }
-                    return crdList.getItems();
-                }    
+                    return buildSnapshot(crdList.getItems());
+                }
             }
         );
 
     public CustomResourceDefinitionService(
         KubernetesClient client,
         K8SAuthorizationService authService,
-        CustomResourceSchemaRepository customResourceSchemaRepository
+        CustomResourceSchemaRepository customResourceSchemaRepository,
+        MeterRegistry meterRegistry
     ) {
         this.client = client;
         this.authService = authService;
         this.customResourceSchemaRepository = customResourceSchemaRepository;
+        GuavaCacheMetrics.monitor(meterRegistry, crdCache, "krm.crds");
     }
 
+    /**
+     * Build a new snapshot from the CRD list. Entries of unchanged CRDs are reused.
+     * @param list
+     * @return
+     */
+    private Map<String, CrdEntry> buildSnapshot(Collection<CustomResourceDefinition> list) {
+        Map<String, CrdEntry> current = crds;
+        Map<String, CrdEntry> snapshot = new HashMap<>();
+        list.forEach(crd -> {
+            String name = crd.getMetadata().getName();
+            CrdEntry entry = current.get(name);
+            if (entry == null || !Objects.equals(entry.resourceVersion, crd.getMetadata().getResourceVersion())) {
+                entry = new CrdEntry(crd);
+            }
+            snapshot.put(name, entry);
+        });
+        Map<String, CrdEntry> result = Collections.unmodifiableMap(snapshot);
+        crds = result;
+        return result;
+    }
 
-    private CustomResourceDefinition readCrd(String id) {
-        try {
-            crdCache.get("");
-        } catch (ExecutionException e) {
-            logger.error("Error reading CRD list", e.getMessage());
+    /**
+     * Start the CRD informer: the snapshot is rebuilt from the informer store on each change.
+     */
+    private synchronized void startInformer() {
+        if (informer != null) {
+            return;
         }
-        return crdMap.get(id);
+        ResourceEventHandler<CustomResourceDefinition> handler = new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(CustomResourceDefinition crd) {
+                onChange();
+            }
+
+            @Override
+            public void onUpdate(CustomResourceDefinition oldCrd, CustomResourceDefinition newCrd) {
+                onChange();
+            }
+
+            @Override
+            public void onDelete(CustomResourceDefinition crd, boolean deletedFinalStateUnknown) {
+                onChange();
+            }
+        };
+        SharedIndexInformer<CustomResourceDefinition> i = client.apiextensions().v1().customResourceDefinitions().runnableInformer(0);
+        i.addEventHandler(handler);
+        // blocks until the initial list is in the store
+        i.run();
+        informer = i;
+        informerSynced = true;
+        onChange();
+        logger.debug("Started CRD informer with {} CRDs", crds.size());
     }
-    private List<CustomResourceDefinition> readCrds() {
+
+    private synchronized void onChange() {
+        // initial list events are collapsed into a single rebuild once synced
+        if (informerSynced) {
+            buildSnapshot(informer.getStore().list());
+        }
+    }
+
+    /**
+     * Stop the CRD informer
+     */
+    @PreDestroy
+    public void stopInformer() {
+        if (informer != null) {
+            informer.stop();
+        }
+    }
+
+    private Map<String, CrdEntry> readSnapshot() {
+        if (informerEnabled) {
+            if (!informerSynced) {
+                startInformer();
+            }
+            return crds;
+        }
         try {
-            crdCache.get("");
+            return crdCache.get("");
         } catch (ExecutionException e) {
             logger.error("Error reading CRD list", e.getMessage());
         }
-        return new LinkedList<>(crdMap.values());
+        return crds;
     }
 
-    private CustomResourceDefinitionVersion fetchVersion(String crdId, String versionName) {
-        // CustomResourceDefinition crd = client.apiextensions().v1().customResourceDefinitions().withName(crdId).get();
-        CustomResourceDefinition crd = readCrd(crdId);
-        if (crd == null) {
+    private CrdEntry readEntry(String id) {
+        CrdEntry entry = readSnapshot().get(id);
+        if (entry == null) {
             throw new NoSuchElementException(SystemKeys.ERROR_NO_CRD);
         }
+        return entry;
+    }
+
+    private CustomResourceDefinition readCrd(String id) {
+        CrdEntry entry = readSnapshot().get(id);
+        return entry != null ? entry.crd : null;
+    }
 
+    private List<CustomResourceDefinition> readCrds() {
+        return readSnapshot().values().stream().map(e -> e.crd).collect(Collectors.toList());
+    }
+
+    private static CustomResourceDefinitionVersion fetchVersion(CustomResourceDefinition crd, String versionName) {
         Optional<CustomResourceDefinitionVersion> storedVersion = crd
             .getSpec()
             .getVersions()
@@ -131,13 +225,24 @@ public class CustomResourceDefinitionService {
      * @return
      */
     public String fetchStoredVersionName(String crdId) {
-        // CustomResourceDefinition crd = client.apiextensions().v1().customResourceDefinitions().withName(crdId).get();
-        CustomResourceDefinition crd = readCrd(crdId);
+        CrdEntry entry = readEntry(crdId);
+        if (entry.storedVersion == null) {
+            throw new NoSuchElementException(SystemKeys.ERROR_NO_STORED_VERSION);
+        }
+        return entry.storedVersion;
+    }
 
-        if (crd == null) {
-            throw new NoSuchElementException(SystemKeys.ERROR_NO_CRD);
+    /**
+     * fetch the context for CR operations on the CRD version with stored = true
+     * @param crdId
+     * @return
+     */
+    public CustomResourceDefinitionContext fetchStoredContext(String crdId) {
+        CrdEntry entry = readEntry(crdId);
+        if (entry.context == null) {
+            throw new NoSuchElementException(SystemKeys.ERROR_NO_STORED_VERSION);
         }
-        return fetchStoredVersionName(crd);
+        return entry.context;
     }
 
     /**
@@ -159,39 +264,34 @@ public class CustomResourceDefinitionService {
         return storedVersion.get().getName();
     }
 
-    private Map<String, Serializable> getCrdSchemaFromVersion(CustomResourceDefinitionVersion version) {
-        Map<String, Serializable> map = null;
+    /**
+     * fetch the resource version of the CRD, changing each time the CRD is modified
+     * @param crdId
+     * @return
+     */
+    public String fetchResourceVersion(String crdId) {
+        return readEntry(crdId).resourceVersion;
+    }
 
+    private static Map<String, Serializable> getCrdSchemaFromVersion(CustomResourceDefinitionVersion version) {
         //convert stored CRD schema to map
-        ObjectMapper objectMapper = new ObjectMapper();
-        MapType typeRef = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Serializable.class);
-        String json = null;
-
         try {
-            json = objectMapper.writeValueAsString(version.getSchema().getOpenAPIV3Schema());
-        } catch (final JsonProcessingException e) {
+            return Collections.unmodifiableMap(objectMapper.convertValue(version.getSchema().getOpenAPIV3Schema(), schemaType));
+        } catch (final IllegalArgumentException e) {
             throw new ParsingException("CRD schema parsing failed: " + e.getMessage());
         }
-
-        if (json != null) {
-            try {
-                map = objectMapper.readValue(json, typeRef);
-            } catch (final IOException e) {
-                throw new ParsingException("CRD schema parsing failed: " + e.getMessage());
-            }
-        }
-        return map;
     }
 
     /**
-     * Return the CRD schema as defined in CRD.
+     * Return the CRD schema as defined in CRD. The schema is converted once for each version of the CRD
+     * and shared, so it must not be modified.
      * @param crdId
      * @param versionName
      * @return
      */
     public Map<String, Serializable> getCrdSchema(String crdId, String versionName) {
-        CustomResourceDefinitionVersion version = fetchVersion(crdId, versionName);
-        return getCrdSchemaFromVersion(version);
+        CrdEntry entry = readEntry(crdId);
+        return entry.schemas.computeIfAbsent(versionName, v -> getCrdSchemaFromVersion(fetchVersion(entry.crd, v)));
     }
 
 
@@ -201,6 +301,12 @@ public class CustomResourceDefinitionService {
      * @return
      */
     public Map<String, Serializable> getCrdSchema(CustomResourceDefinition crd) {
+        CrdEntry entry = readSnapshot().get(crd.getMetadata().getName());
+        if (entry != null && entry.crd == crd && entry.storedVersion != null) {
+            // CRD of the current snapshot
+            return entry.schemas.computeIfAbsent(entry.storedVersion, v -> getCrdSchemaFromVersion(fetchVersion(crd, v)));
+        }
+
         Optional<CustomResourceDefinitionVersion> storedVersion = crd
             .getSpec()
             .getVersions()
@@ -250,6 +356,25 @@ public class CustomResourceDefinitionService {
         boolean onlyWithoutSchema,
         Pageable pageable
     ) {
+        return findAll(ids, onlyWithoutSchema, null, pageable);
+    }
+
+    /**
+     * Find all the CRDs paginated, sorted as requested and optionally filtered by filter expressions (see {@link ResourceQuery}).
+     * If onlyWithoutSchema parameter is specified, filter only those, for which custom schema has not been stored yet.
+     * @param ids
+     * @param onlyWithoutSchema
+     * @param filters
+     * @param pageable
+     * @return
+     */
+    public Page<IdAwareCustomResourceDefinition> findAll(
+        Collection<String> ids,
+        boolean onlyWithoutSchema,
+        Collection<String> filters,
+        Pageable pageable
+    ) {
+        ResourceQuery query = ResourceQuery.of(pageable.getSort(), filters);
         List<IdAwareCustomResourceDefinition> crds;
         if (ids == null) {
             // CustomResourceDefinitionList crdList = client.apiextensions().v1().customResourceDefinitions().list();
@@ -304,15 +429,19 @@ public class CustomResourceDefinitionService {
                 });
         }
 
-        //sort by CRD ID and provide pagination
+        //sort by CRD ID, then apply the query and provide pagination
         crds.sort((IdAwareCustomResourceDefinition h1, IdAwareCustomResourceDefinition h2) ->
             h1.getId().compareTo(h2.getId())
         );
-        int offset = (int) pageable.getOffset();
-        int pageSize = Math.min(pageable.getPageSize(), crds.size());
-        int toIndex = Math.min(offset + pageSize, crds.size());
+        return query.apply(crds, IdAwareCustomResourceDefinition::getCrd, pageable);
+    }
 
-        return new PageImpl<>(crds.subList(offset, toIndex), pageable, crds.size());
+    /**
+     * Get the names of all the allowed CRDs, without building the resource representations
+     * @return
+     */
+    public List<String> findAllIds() {
+        return readSnapshot().keySet().stream().filter(authService::isCrdAllowed).sorted().toList();
     }
 
     /**
@@ -333,4 +462,38 @@ public class CustomResourceDefinitionService {
         }
         return new IdAwareCustomResourceDefinition(crd);
     }
+
+    /**
+     * CRD with the values precomputed for CR operations
+     */
+    private static class CrdEntry {
+
+        private final CustomResourceDefinition crd;
+        private final String resourceVersion;
+        private final String storedVersion;
+        private final CustomResourceDefinitionContext context;
+        // version name -> schema map, converted on first use
+        private final Map<String, Map<String, Serializable>> schemas = new ConcurrentHashMap<>();
+
+        CrdEntry(CustomResourceDefinition crd) {
+            this.crd = crd;
+            this.resourceVersion = crd.getMetadata().getResourceVersion();
+            this.storedVersion = crd
+                .getSpec()
+                .getVersions()
+                .stream()
+                .filter(version -> Boolean.TRUE.equals(version.getStorage()))
+                .map(CustomResourceDefinitionVersion::getName)
+                .findAny()
+                .orElse(null);
+            this.context = storedVersion == null ? null : new CustomResourceDefinitionContext.Builder()
+                .withScope(Scope.NAMESPACED.value())
+                .withGroup(crd.getSpec().getGroup())
+                .withName(crd.getMetadata().getName())
+                .withPlural(crd.getSpec().getNames().getPlural())
+                .withKind(crd.getSpec().getNames().getKind())
+                .withVersion(storedVersion)
+                .build();
+        }
+    }
 }
@@ -25,8 +25,10 @@ import java.util.Map;
 import java.util.LinkedList;
 
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -39,8 +41,18 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersionDetector;
 
 import io.fabric8.kubernetes.api.model.apiextensions.v1.CustomResourceDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 
 /**
  * Service for managing the custom schemas for CRDs
@@ -50,28 +62,57 @@ public class CustomResourceSchemaService {
 
     public static final Logger logger = LoggerFactory.getLogger(CustomResourceSchemaService.class);
 
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String DEFAULT_SCHEMA_SPEC = "https://json-schema.org/draft/2020-12/schema";
+    private static final String REVISION_CRD = "crd:";
+    private static final String REVISION_DB = "db:";
+
     private final CustomResourceSchemaRepository customResourceSchemaRepository;
     private final DTOToSchemaConverter dtoToSchemaConverter;
     private final SchemaToDTOConverter schemaToDTOConverter;
     private final CustomResourceDefinitionService crdService;
     private final K8SAuthorizationService authService;
-    
+    private final StartupTasks startupTasks;
+
+    // crdId/version -> resolved schema (stored or derived from the CRD). Stored schemas are invalidated on change,
+    // CRD-derived ones are checked against the CRD resourceVersion. Expiration bounds staleness with other replicas
+    private final Cache<String, CustomResourceSchema> resolvedSchemas = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .recordStats()
+        .build();
+
+    // crdId/version -> compiled schema, checked against the schema revision
+    private final Cache<String, CompiledSchema> compiledSchemas = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .recordStats()
+        .build();
+
     public CustomResourceSchemaService(
         CustomResourceSchemaRepository customResourceSchemaRepository,
         CustomResourceDefinitionService crdService,
-        K8SAuthorizationService authService
+        K8SAuthorizationService authService,
+        StartupTasks startupTasks,
+        MeterRegistry meterRegistry
     ) {
         this.customResourceSchemaRepository = customResourceSchemaRepository;
         this.dtoToSchemaConverter = new DTOToSchemaConverter();
         this.schemaToDTOConverter = new SchemaToDTOConverter();
         this.crdService = crdService;
         this.authService = authService;
+        this.startupTasks = startupTasks;
+        GuavaCacheMetrics.monitor(meterRegistry, compiledSchemas, "krm.schemas");
+        GuavaCacheMetrics.monitor(meterRegistry, resolvedSchemas, "krm.schemas.resolved");
+    }
+
+    @PostConstruct
+    public void init() {
+        startupTasks.submit("schemas", this::bootstrapSchemas);
     }
 
     /**
      * Load and stores pre-defined schemas from json files.
      */
-    @PostConstruct
     public void bootstrapSchemas() {
         Page<IdAwareCustomResourceDefinition> crds = crdService.findAll(null, true, PageRequest.ofSize(1000));
         crds.forEach(crd -> {
@@ -92,12 +133,72 @@ public class CustomResourceSchemaService {
         });
     }
 
+    private CustomResourceSchema save(CustomResourceSchema schema) {
+        // converted rows are stored in the binary column only
+        schema.setLegacySchema(null);
+        return customResourceSchemaRepository.save(schema);
+    }
+
+    /**
+     * Move a schema stored as JSON text by previous versions to the binary column, on first read.
+     * The schema content is already read from the JSON text on load.
+     */
+    private CustomResourceSchema migrate(CustomResourceSchema schema) {
+        if (schema.getLegacySchema() == null) {
+            return schema;
+        }
+        try {
+            return save(schema);
+        } catch (RuntimeException e) {
+            // still readable from the JSON text, retried on next read
+            logger.warn("Error migrating schema {}: {}", schema.getId(), e.getMessage());
+            return schema;
+        }
+    }
+
     private Optional<CustomResourceSchema> fetchById(String id) {
-        return customResourceSchemaRepository.findById(id);
+        return customResourceSchemaRepository.findById(id).map(this::migrate);
     }
 
     private Optional<CustomResourceSchema> fetchByCrdIdAndVersion(String crdId, String version) {
-        return customResourceSchemaRepository.findByCrdIdAndVersion(crdId, version);
+        return customResourceSchemaRepository.findByCrdIdAndVersion(crdId, version).map(this::migrate);
+    }
+
+    private static String schemaKey(String crdId, String version) {
+        return crdId + "/" + version;
+    }
+
+    /**
+     * Return the compiled JSON schema for validation. Compiled schemas are cached by CRD and version
+     * and reused as long as the schema revision does not change.
+     * @param schema
+     * @return
+     */
+    public JsonSchema getJsonSchema(CustomResourceSchema schema) {
+        String key = schemaKey(schema.getCrdId(), schema.getVersion());
+        CompiledSchema compiled = compiledSchemas.getIfPresent(key);
+        if (compiled != null && schema.getRevision() != null && schema.getRevision().equals(compiled.revision)) {
+            return compiled.schema;
+        }
+
+        JsonSchema jsonSchema = compileSchema(schema.getSchema());
+        if (schema.getRevision() != null) {
+            compiledSchemas.put(key, new CompiledSchema(schema.getRevision(), jsonSchema));
+        }
+        return jsonSchema;
+    }
+
+    private JsonSchema compileSchema(Map<String, Serializable> schemaMap) {
+        JsonNode schemaNode = mapper.valueToTree(schemaMap);
+        // workaround for the $schema attribute, required by the library to detect the spec version
+        if (schemaNode.isObject() && !schemaNode.has("$schema")) {
+            ((ObjectNode) schemaNode).put("$schema", DEFAULT_SCHEMA_SPEC);
+        }
+        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersionDetector.detect(schemaNode));
+        JsonSchema jsonSchema = factory.getSchema(schemaNode);
+        // initialize eagerly, so that the instance can be shared by concurrent validations
+        jsonSchema.initializeValidators();
+        return jsonSchema;
     }
 
     /**
@@ -117,9 +218,9 @@ public class CustomResourceSchemaService {
                 CustomResourceDefinition crd = idCrd.getCrd();
                 String crdId = crd.getMetadata().getName();
                 String version = crdService.fetchStoredVersionName(crd);
-                Optional<CustomResourceSchema> stored = fetchByCrdIdAndVersion(crdId, version);
-                if (stored.isPresent()) {
-                    schemaList.add(schemaToDTOConverter.convert(stored.get()));
+                CustomResourceSchema resolved = resolve(crdId, version);
+                if (resolved != null) {
+                    schemaList.add(schemaToDTOConverter.convert(resolved));
                 } else {
                     CustomResourceSchema schema = new CustomResourceSchema();
                     schema.setCrdId(crdId);
@@ -175,19 +276,66 @@ public class CustomResourceSchemaService {
      * @return
      */
     public CustomResourceSchema findCRDByCrdIdAndVersion(String crdId, String version) {
+        CustomResourceSchema schema = resolve(crdId, version);
+        if (schema == null) {
+            throw new NoSuchElementException(SystemKeys.ERROR_NO_SCHEMA_WITH_VERSION);
+        }
+        return schema;
+    }
+
+    /**
+     * Resolve the schema of CRD and version: the stored one if present, otherwise the one derived from the CRD.
+     * Resolved schemas are cached, so that the DB is not queried on each CR operation.
+     * The returned instance is shared and must not be modified.
+     * @param crdId
+     * @param version
+     * @return null if there is neither a stored schema nor a CRD schema
+     */
+    private CustomResourceSchema resolve(String crdId, String version) {
+        String key = schemaKey(crdId, version);
+        CustomResourceSchema cached = resolvedSchemas.getIfPresent(key);
+        if (cached != null && isCurrent(cached)) {
+            return cached;
+        }
+
+        CustomResourceSchema schema;
         Optional<CustomResourceSchema> result = fetchByCrdIdAndVersion(crdId, version);
-        if (!result.isPresent()) {
+        if (result.isPresent()) {
+            schema = result.get();
+            // content hash: schemas updated by other replicas are compiled again once the entry expires
+            schema.setRevision(REVISION_DB + schema.getId() + ":" + Objects.hashCode(schema.getSchema()));
+        } else {
+            String revision = REVISION_CRD + crdService.fetchResourceVersion(crdId);
             Map<String, Serializable> schemaMap = crdService.getCrdSchema(crdId, version);
-            if (schemaMap != null) {
-                CustomResourceSchema schema = new CustomResourceSchema();
-                schema.setCrdId(crdId);
-                schema.setVersion(version);
-                schema.setSchema(schemaMap);
-                return schema;
+            if (schemaMap == null) {
+                return null;
             }
-            throw new NoSuchElementException(SystemKeys.ERROR_NO_SCHEMA_WITH_VERSION);
+            schema = new CustomResourceSchema();
+            schema.setCrdId(crdId);
+            schema.setVersion(version);
+            schema.setSchema(schemaMap);
+            schema.setRevision(revision);
         }
-        return result.get();
+        resolvedSchemas.put(key, schema);
+        return schema;
+    }
+
+    private boolean isCurrent(CustomResourceSchema schema) {
+        if (schema.getRevision().startsWith(REVISION_CRD)) {
+            // CRD changed or removed: derive again
+            try {
+                return schema.getRevision().equals(REVISION_CRD + crdService.fetchResourceVersion(schema.getCrdId()));
+            } catch (NoSuchElementException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void invalidate(String crdId, String version) {
+        String key = schemaKey(crdId, version);
+        resolvedSchemas.invalidate(key);
+        compiledSchemas.invalidate(key);
     }
 
     /**
@@ -238,7 +386,9 @@ public class CustomResourceSchemaService {
             result.setSchema(crdService.getCrdSchema(result.getCrdId(), result.getVersion()));
         }
 
-        return schemaToDTOConverter.convert(customResourceSchemaRepository.save(result));
+        CustomResourceSchemaDTO dto = schemaToDTOConverter.convert(save(result));
+        invalidate(result.getCrdId(), result.getVersion());
+        return dto;
     }
 
     /**
@@ -268,7 +418,9 @@ public class CustomResourceSchemaService {
             currentSchema.setSchema(crdService.getCrdSchema(currentSchema.getCrdId(), currentSchema.getVersion()));
         }
 
-        return schemaToDTOConverter.convert(customResourceSchemaRepository.save(currentSchema));
+        CustomResourceSchemaDTO dto = schemaToDTOConverter.convert(save(currentSchema));
+        invalidate(currentSchema.getCrdId(), currentSchema.getVersion());
+        return dto;
     }
 
     /**
@@ -276,8 +428,21 @@ public class CustomResourceSchemaService {
      * @param id
      */
     public void delete(String id) {
-        if (fetchById(id).isPresent()) {
+        Optional<CustomResourceSchema> schema = fetchById(id);
+        if (schema.isPresent()) {
             customResourceSchemaRepository.deleteById(id);
+            invalidate(schema.get().getCrdId(), schema.get().getVersion());
+        }
+    }
+
+    private static class CompiledSchema {
+
+        private final String revision;
+        private final JsonSchema schema;
+
+        CompiledSchema(String revision, JsonSchema schema) {
+            this.revision = revision;
+            this.schema = schema;
         }
     }
 }
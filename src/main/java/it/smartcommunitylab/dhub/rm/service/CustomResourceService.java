@@ -4,38 +4,63 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
-import com.networknt.schema.SpecVersionDetector;
 import com.networknt.schema.ValidationMessage;
 import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
 import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.NamespaceableResource;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
-import io.fabric8.kubernetes.model.Scope;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.zjsonpatch.JsonPatch;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.exception.ValidationException;
 import it.smartcommunitylab.dhub.rm.model.CustomResourceSchema;
 import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO.BULK_OP;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkResultDTO;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import java.util.Collections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -51,89 +76,239 @@ public class CustomResourceService {
 
     private static final String LABEL = "app.kubernetes.io/created-by";
 
+    // restarts of a chunked list whose continue token expired
+    private static final int LIST_MAX_RESTARTS = 3;
+
+    // expiration of the name indexes, for the changes not made through this service
+    private static final int NAME_INDEX_EXPIRATION_SEC = 60;
+
     @Value("${kubernetes.cr.created-by:}")
     private String createdByLabel;
 
+    @Value("${kubernetes.cache.informer:false}")
+    private boolean informerEnabled;
+
+    // chunk size for listing CRs page by page, 0 to load the whole list
+    @Value("${kubernetes.cr.list-chunk-size:500}")
+    private int listChunkSize;
+
+    // max number of operations of a bulk request, and max operations run concurrently
+    @Value("${kubernetes.cr.bulk-max-items:500}")
+    private int bulkMaxItems;
+
+    @Value("${kubernetes.cr.bulk-parallelism:4}")
+    private int bulkParallelism;
+
+    // update CRs with server-side apply, as the specified field manager
+    @Value("${kubernetes.cr.server-side-apply:false}")
+    private boolean serverSideApply;
+
+    @Value("${kubernetes.cr.field-manager:krm}")
+    private String fieldManager;
+
+    // namespace -> informers and indexes of the namespace
+    private final ConcurrentHashMap<String, Shard> shards = new ConcurrentHashMap<>();
+
+    // namespace/crdId/version -> sorted names of the CRs, for the chunked listing
+    private final Cache<String, List<String>> nameIndexes = CacheBuilder.newBuilder()
+        .expireAfterWrite(NAME_INDEX_EXPIRATION_SEC, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+
     private final KubernetesClient client;
     private final CustomResourceDefinitionService crdService;
     private final CustomResourceSchemaService schemaService;
     private final K8SAuthorizationService authService;
+    private final K8SCallExecutor callExecutor;
+    private final MeterRegistry meterRegistry;
 
     public CustomResourceService(
         KubernetesClient client,
         CustomResourceDefinitionService crdService,
         CustomResourceSchemaService schemaService,
-        K8SAuthorizationService authService
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry
     ) {
         Assert.notNull(client, "Client required");
         this.client = client;
         this.crdService = crdService;
         this.schemaService = schemaService;
         this.authService = authService;
+        this.callExecutor = callExecutor;
+
+        GuavaCacheMetrics.monitor(meterRegistry, nameIndexes, "krm.cr.names");
+        this.meterRegistry = meterRegistry;
     }
 
     private CustomResourceSchema checkSchema(String crdId, String version) {
         return schemaService.findCRDByCrdIdAndVersion(crdId, version);
     }
 
+    private boolean hasCreatedByLabel(GenericKubernetesResource cr) {
+        if (!StringUtils.hasText(createdByLabel)) return true;
+        Map<String, String> labels = cr.getMetadata().getLabels();
+        return labels != null && createdByLabel.equals(labels.get(LABEL));
+    }
+
     /**
-     * Create CRD context based on CRD ID and a version. Note that version parameter does not act as a filter,
-     * because method withVersion() does not seem to filter for the given version (it might be a bug in the client code).
-     * @param crdId
-     * @param version if not provided, v1 is used by default but if it does not exist an error is thrown
-     * @return CustomResourceDefinitionContext
+     * Get the informer of the CRs of the specified CRD and namespace, starting it on first access.
+     * @param context
+     * @param namespace
+     * @return null if informer mode is disabled
      */
-    private CustomResourceDefinitionContext createCrdContext(String crdId, String version) {
-        String[] crdMeta = crdId.split("\\.", 2);
-        String plural = crdMeta[0];
-        String group = crdMeta[1];
+    private SharedIndexInformer<GenericKubernetesResource> readInformer(
+        CustomResourceDefinitionContext context,
+        String namespace
+    ) {
+        if (!informerEnabled) {
+            return null;
+        }
 
-        return new CustomResourceDefinitionContext.Builder()
-            .withScope(Scope.NAMESPACED.value())
-            .withGroup(group)
-            .withName(crdId)
-            .withPlural(plural)
-            .withVersion(version)
-            .build();
+        String key = context.getName() + "/" + context.getVersion();
+        return shards.computeIfAbsent(namespace, ns -> new Shard()).informers.computeIfAbsent(
+            key,
+            k -> {
+                logger.debug("Start informer for CRD {} in namespace {}", context.getName(), namespace);
+                return client.genericKubernetesResources(context).inNamespace(namespace).inform();
+            }
+        );
     }
 
-    private boolean hasCreatedByLabel(GenericKubernetesResource cr) {
-        if (!StringUtils.hasText(createdByLabel)) return true;
-        Map<String, String> labels = cr.getMetadata().getLabels();
-        return labels != null && createdByLabel.equals(labels.get(LABEL));
+    /**
+     * Get the sorted index of the CRs created by KRM in the informer store, updated on each change.
+     * @param context
+     * @param namespace
+     * @return null if informer mode is disabled
+     */
+    private SortedIndex<IdAwareCustomResource> readIndex(CustomResourceDefinitionContext context, String namespace) {
+        SharedIndexInformer<GenericKubernetesResource> informer = readInformer(context, namespace);
+        if (informer == null) {
+            return null;
+        }
+
+        String key = context.getName() + "/" + context.getVersion();
+        return shards.computeIfAbsent(namespace, ns -> new Shard()).indexes.computeIfAbsent(
+            key,
+            k -> StoreIndexHandler.bind(
+                List.of(informer),
+                i -> i.getStore().list(),
+                cr -> hasCreatedByLabel(cr) ? new IdAwareCustomResource(cr) : null,
+                new SortedIndex<>(IdAwareCustomResource::getId, ResourceQuery.indexedOrders(IdAwareCustomResource::getCr))
+            )
+        );
     }
 
-    private NamespaceableResource<GenericKubernetesResource> fetchCustomResource(
+    /**
+     * Stop all the running informers
+     */
+    @PreDestroy
+    public void stopInformers() {
+        shards.values().forEach(Shard::stop);
+        shards.clear();
+    }
+
+    /**
+     * Stop the informers of the namespace, e.g. when it is no longer managed
+     * @param namespace
+     */
+    public void release(String namespace) {
+        Shard shard = shards.remove(namespace);
+        if (shard != null) {
+            shard.stop();
+        }
+        nameIndexes.asMap().keySet().removeIf(key -> key.startsWith(namespace + "/"));
+    }
+
+    /**
+     * Watch the changes of the CRs of the specified CRD. In informer mode the listener is attached to the shared informer,
+     * otherwise a dedicated informer is started. Existing CRs are not notified, and CRs not created by KRM
+     * (when the created-by label is set) are skipped.
+     * @param crdId
+     * @param namespace
+     * @param listener
+     * @return the action stopping the dedicated informer, or null if the informer is shared
+     */
+    public Runnable watch(String crdId, String namespace, Consumer<ResourceEvent> listener) {
+        if (!authService.isCrdAllowed(crdId)) {
+            throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
+        }
+
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        SharedIndexInformer<GenericKubernetesResource> informer = readInformer(context, namespace);
+        if (informer != null) {
+            ResourceChangeHandler.attach(informer, this::hasCreatedByLabel, listener);
+            return null;
+        }
+
+        var query = client.genericKubernetesResources(context).inNamespace(namespace);
+        SharedIndexInformer<GenericKubernetesResource> own = StringUtils.hasText(createdByLabel)
+            ? query.withLabel(LABEL, createdByLabel).inform()
+            : query.inform();
+        ResourceChangeHandler.attach(own, this::hasCreatedByLabel, listener);
+        return own::stop;
+    }
+
+    /**
+     * Fetch a single CR by name: from the informer store if available, otherwise with a direct GET.
+     * @param context
+     * @param id
+     * @param namespace
+     * @return null if not found
+     */
+    private GenericKubernetesResource fetchCustomResource(
         CustomResourceDefinitionContext context,
         String id,
         String namespace
     ) {
-        GenericKubernetesResourceList customResourceObjectList = client
-            .genericKubernetesResources(context)
-            .inNamespace(namespace)
-            .list();
-        for (GenericKubernetesResource cr : customResourceObjectList.getItems()) {
-            if (cr.getMetadata().getName().equals(id)) {
-                return client.resource(cr);
-            }
+        SharedIndexInformer<GenericKubernetesResource> informer = readInformer(context, namespace);
+        if (informer != null) {
+            return informer.getStore().getByKey(namespace + "/" + id);
         }
-        return null;
+
+        return client.genericKubernetesResources(context).inNamespace(namespace).withName(id).get();
     }
 
-    private Set<ValidationMessage> validateCR(CustomResourceSchema schema, GenericKubernetesResource cr) {
-        //1. get CR spec as JsonNode
-        JsonNode crAdditionalProps = cr.getAdditionalPropertiesNode();
+    /**
+     * Fetch the CRs with the specified names. Without informer, lookups are run concurrently,
+     * one GET per name.
+     * @param context
+     * @param ids
+     * @param namespace
+     * @return found CRs, in the order of the ids
+     */
+    private List<GenericKubernetesResource> fetchCustomResources(
+        CustomResourceDefinitionContext context,
+        Collection<String> ids,
+        String namespace
+    ) {
+        Set<String> names = new LinkedHashSet<>(ids);
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        //2. get schema as JsonSchema
-        ObjectMapper mapper = new ObjectMapper();
-        // workaround for the $schema attribute
-        if (!schema.getSchema().containsKey("$schema")) {
-            schema.getSchema().put("$schema", "https://json-schema.org/draft/2020-12/schema");
+        List<GenericKubernetesResource> list;
+        if (readInformer(context, namespace) != null) {
+            list = names.stream().map(id -> fetchCustomResource(context, id, namespace)).collect(Collectors.toList());
+        } else {
+            list = callExecutor.map(names, id -> fetchCustomResource(context, id, namespace));
         }
-        JsonNode schemaNode = mapper.valueToTree(schema.getSchema());
-        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersionDetector.detect(schemaNode));
-        JsonSchema jsonSchema = factory.getSchema(schemaNode);
-        return jsonSchema.validate(crAdditionalProps);
+        return list.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private Set<ValidationMessage> validateCR(JsonSchema jsonSchema, GenericKubernetesResource cr) {
+        //get CR spec as JsonNode and validate against the compiled schema (cached by CRD, version and schema revision)
+        Timer.Sample sample = Timer.start(meterRegistry);
+        JsonNode crAdditionalProps = cr.getAdditionalPropertiesNode();
+        Set<ValidationMessage> errors = jsonSchema.validate(crAdditionalProps);
+        sample.stop(
+            Timer
+                .builder("krm.cr.validation")
+                .description("CR schema validation")
+                .tags("kind", String.valueOf(cr.getKind()), "valid", String.valueOf(errors.isEmpty()))
+                .register(meterRegistry)
+        );
+        return errors;
     }
 
     /**
@@ -145,24 +320,64 @@ public class CustomResourceService {
      * @return
      */
     public Page<IdAwareCustomResource> findAll(String crdId, String namespace, Collection<String> ids, Pageable pageable) {
+        return findAll(crdId, namespace, ids, null, pageable);
+    }
+
+    /**
+     * Find all CRs in namespace (paginated), sorted as requested and possibly filtered by list of specified Ids
+     * and by filter expressions (see {@link ResourceQuery})
+     * @param crdId
+     * @param namespace
+     * @param ids
+     * @param filters
+     * @param pageable
+     * @return
+     */
+    public Page<IdAwareCustomResource> findAll(
+        String crdId,
+        String namespace,
+        Collection<String> ids,
+        Collection<String> filters,
+        Pageable pageable
+    ) {
+        ResourceQuery query = ResourceQuery.of(pageable.getSort(), filters);
         if (!authService.isCrdAllowed(crdId)) {
             throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
         }
 
-        String version = crdService.fetchStoredVersionName(crdId);
-        checkSchema(crdId, version);
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        checkSchema(crdId, context.getVersion());
 
-        CustomResourceDefinitionContext context = createCrdContext(crdId, version);
+        if (ids == null && !informerEnabled && listChunkSize > 0 && query.isDefault()) {
+            // read the names of the page from the name index, then fetch only the CRs of the page
+            try {
+                return findPage(context, namespace, pageable);
+            } catch (KubernetesClientException e) {
+                if (e.getCode() == HttpStatus.GONE.value()) {
+                    throw e;
+                }
+                logger.warn("No CRD {} resources in namespace {}", crdId, namespace);
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+            } catch (Exception e) {
+                logger.warn("No CRD {} resources in namespace {}", crdId, namespace);
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+            }
+        }
 
         List<IdAwareCustomResource> crs;
         if (ids == null) {
             List<GenericKubernetesResource> list = Collections.emptyList();
             try {
-                var query = client.genericKubernetesResources(context).inNamespace(namespace);
+                SortedIndex<IdAwareCustomResource> index = readIndex(context, namespace);
+                if (index != null) {
+                    // sorted by ID or by a maintained order: only the requested page is copied
+                    return query.apply(index, IdAwareCustomResource::getCr, pageable);
+                }
+                var resources = client.genericKubernetesResources(context).inNamespace(namespace);
                 if (StringUtils.hasText(createdByLabel)) {
-                    list = query.withLabel(LABEL, createdByLabel).list().getItems();
+                    list = resources.withLabel(LABEL, createdByLabel).list().getItems();
                 } else {
-                    list = query.list().getItems();
+                    list = resources.list().getItems();
                 }
             } catch (Exception e) {
                 logger.warn("No CRD {} resources in namespace {}", crdId, namespace);
@@ -172,24 +387,112 @@ public class CustomResourceService {
                 .map(IdAwareCustomResource::new)
                 .collect(Collectors.toList());
         } else {
-            crs = new ArrayList<>();
-            ids
+            crs = fetchCustomResources(context, ids, namespace)
                 .stream()
-                .forEach(id -> {
-                    NamespaceableResource<GenericKubernetesResource> cr = fetchCustomResource(context, id, namespace);
-                    if (cr != null && hasCreatedByLabel(cr.get())) {
-                        crs.add(new IdAwareCustomResource(cr.get()));
-                    }
-                });
+                .filter(this::hasCreatedByLabel)
+                .map(IdAwareCustomResource::new)
+                .collect(Collectors.toList());
         }
 
-        //sort by ID and provide pagination
+        //sort by ID, then apply the query and provide pagination
         crs.sort((IdAwareCustomResource h1, IdAwareCustomResource h2) -> h1.getId().compareTo(h2.getId()));
-        int offset = (int) pageable.getOffset();
-        int pageSize = Math.min(pageable.getPageSize(), crs.size());
-        int toIndex = Math.min(offset + pageSize, crs.size());
+        return query.apply(crs, IdAwareCustomResource::getCr, pageable);
+    }
+
+    /**
+     * Read a page of CRs using the index of the names of the namespace CRs: the index provides the exact
+     * total and the names of the page, then only the CRs of the page are fetched (one GET per name,
+     * concurrently). CRs deleted since the index was built are skipped. The index is rebuilt at most every
+     * {@value #NAME_INDEX_EXPIRATION_SEC} seconds, or when CRs are created or deleted through this service.
+     * @param context
+     * @param namespace
+     * @param pageable
+     * @return
+     */
+    private Page<IdAwareCustomResource> findPage(
+        CustomResourceDefinitionContext context,
+        String namespace,
+        Pageable pageable
+    ) {
+        List<String> names = readNames(context, namespace);
+        List<IdAwareCustomResource> page = fetchCustomResources(
+            context,
+            SortedIndex.page(names, pageable.getOffset(), pageable.getPageSize()),
+            namespace
+        )
+            .stream()
+            .filter(this::hasCreatedByLabel)
+            .map(IdAwareCustomResource::new)
+            .collect(Collectors.toList());
+        return new PageImpl<>(page, pageable, names.size());
+    }
 
-        return new PageImpl<>(crs.subList(offset, toIndex), pageable, crs.size());
+    private static String nameIndexKey(CustomResourceDefinitionContext context, String namespace) {
+        return namespace + "/" + context.getName() + "/" + context.getVersion();
+    }
+
+    private void invalidateNames(CustomResourceDefinitionContext context, String namespace) {
+        nameIndexes.invalidate(nameIndexKey(context, namespace));
+    }
+
+    /**
+     * Get the sorted names of the CRs of the namespace, listing them if not indexed yet
+     * @param context
+     * @param namespace
+     * @return
+     */
+    private List<String> readNames(CustomResourceDefinitionContext context, String namespace) {
+        try {
+            return nameIndexes.get(nameIndexKey(context, namespace), () -> loadNames(context, namespace));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * List the names of the CRs of the namespace in chunks (limit/continue), so that only one chunk of CRs
+     * is in memory at a time. When the continue token expires (410 Gone) the list is restarted.
+     * @param context
+     * @param namespace
+     * @return
+     */
+    private List<String> loadNames(CustomResourceDefinitionContext context, String namespace) {
+        for (int restarts = 0;; restarts++) {
+            try {
+                return listNames(context, namespace);
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpStatus.GONE.value() || restarts >= LIST_MAX_RESTARTS) {
+                    throw e;
+                }
+                logger.debug("List of {} in namespace {} expired, restarting", context.getName(), namespace);
+            }
+        }
+    }
+
+    private List<String> listNames(CustomResourceDefinitionContext context, String namespace) {
+        List<String> names = new ArrayList<>();
+        String token = null;
+
+        do {
+            ListOptionsBuilder options = new ListOptionsBuilder().withLimit((long) listChunkSize).withContinue(token);
+            if (StringUtils.hasText(createdByLabel)) {
+                options.withLabelSelector(LABEL + "=" + createdByLabel);
+            }
+            GenericKubernetesResourceList chunk = client
+                .genericKubernetesResources(context)
+                .inNamespace(namespace)
+                .list(options.build());
+
+            chunk.getItems().forEach(cr -> names.add(cr.getMetadata().getName()));
+            token = chunk.getMetadata() != null ? chunk.getMetadata().getContinue() : null;
+        } while (StringUtils.hasText(token));
+
+        // already ordered by name by the API server
+        Collections.sort(names);
+        return Collections.unmodifiableList(names);
     }
 
     /**
@@ -204,19 +507,17 @@ public class CustomResourceService {
             throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
         }
 
-        String storedVersion = crdService.fetchStoredVersionName(crdId);
-        checkSchema(crdId, storedVersion);
-
-        CustomResourceDefinitionContext context = createCrdContext(crdId, storedVersion);
-        NamespaceableResource<GenericKubernetesResource> cr = fetchCustomResource(context, id, namespace);
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        checkSchema(crdId, context.getVersion());
+        GenericKubernetesResource cr = fetchCustomResource(context, id, namespace);
         if (cr == null) {
             throw new NoSuchElementException(SystemKeys.ERROR_NO_CR);
         }
-        if (!hasCreatedByLabel(cr.get())) {
+        if (!hasCreatedByLabel(cr)) {
             throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
         }
 
-        return new IdAwareCustomResource(cr.get());
+        return new IdAwareCustomResource(cr);
     }
 
     /**
@@ -232,31 +533,11 @@ public class CustomResourceService {
         }
 
         //if schema is not found in the DB, an error is thrown
-        String version = request.getCr().getApiVersion().split("/")[1];
-        String storedVersion = crdService.fetchStoredVersionName(crdId);
-        if (!version.equals(storedVersion)) {
-            throw new IllegalArgumentException(String.format("Version %s is not stored", version));
-        }
-        CustomResourceSchema schema = checkSchema(crdId, version);
-
-        //schema validation
-        Set<ValidationMessage> errors = validateCR(schema, request.getCr());
-
-        if (!errors.isEmpty()) {
-            throw new ValidationException(errors);
-        }
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        checkVersion(context, request.getCr());
+        JsonSchema jsonSchema = schemaService.getJsonSchema(checkSchema(crdId, context.getVersion()));
 
-        // inject ownership label
-        if (StringUtils.hasText(createdByLabel)) {
-            Map<String, String> labels = request.getCr().getMetadata().getLabels();
-            if (labels == null) {
-                labels = new HashMap<>();
-                request.getCr().getMetadata().setLabels(labels);
-            }
-            labels.put(LABEL, createdByLabel);
-        }
-
-        return new IdAwareCustomResource(client.resource(request.getCr()).inNamespace(namespace).create());
+        return create(context, jsonSchema, request.getCr(), namespace);
     }
 
     /**
@@ -273,43 +554,147 @@ public class CustomResourceService {
         }
 
         //if schema is not found in the DB, an error is thrown
-        String version = request.getCr().getApiVersion().split("/")[1];
-        String storedVersion = crdService.fetchStoredVersionName(crdId);
-        if (!version.equals(storedVersion)) {
-            throw new IllegalArgumentException(String.format("Version %s is not stored", version));
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        checkVersion(context, request.getCr());
+        JsonSchema jsonSchema = schemaService.getJsonSchema(checkSchema(crdId, context.getVersion()));
+
+        return replace(context, jsonSchema, id, request.getCr(), namespace);
+    }
+
+    /**
+     * Patch existing CR with the specified ID of the specified CRD and namespace, with a JSON patch
+     * or a JSON merge patch. The patch is applied locally to the current CR to validate the result,
+     * then sent to the API server with the resourceVersion of that CR as precondition, so that the validated
+     * result is the one stored.
+     * @param crdId
+     * @param id
+     * @param patch
+     * @param type either JSON or JSON_MERGE
+     * @param resourceVersion expected resourceVersion of the CR, optional
+     * @param namespace
+     * @return
+     */
+    public IdAwareCustomResource patch(
+        String crdId,
+        String id,
+        JsonNode patch,
+        PatchType type,
+        String resourceVersion,
+        String namespace
+    ) {
+        if (!authService.isCrdAllowed(crdId)) {
+            throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
+        }
+        if (patch == null) {
+            throw new IllegalArgumentException(SystemKeys.ERROR_NULL_INPUT);
+        }
+        if (type != PatchType.JSON && type != PatchType.JSON_MERGE) {
+            throw new IllegalArgumentException(String.format("Patch type %s is not supported", type));
+        }
+        if (type == PatchType.JSON && !patch.isArray()) {
+            throw new IllegalArgumentException("JSON patch must be an array of operations");
+        }
+        if (type == PatchType.JSON_MERGE && !patch.isObject()) {
+            throw new IllegalArgumentException("JSON merge patch must be an object");
         }
-        CustomResourceSchema schema = checkSchema(crdId, version);
 
-        CustomResourceDefinitionContext context = createCrdContext(crdId, storedVersion);
-        NamespaceableResource<GenericKubernetesResource> cr = fetchCustomResource(context, id, namespace);
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        JsonSchema jsonSchema = schemaService.getJsonSchema(checkSchema(crdId, context.getVersion()));
+        GenericKubernetesResource cr = fetchCustomResource(context, id, namespace);
         if (cr == null) {
             throw new NoSuchElementException(SystemKeys.ERROR_NO_CR_WITH_VERSION);
         }
-        if (!hasCreatedByLabel(cr.get())) {
+        if (!hasCreatedByLabel(cr)) {
             throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
         }
+        String currentVersion = cr.getMetadata().getResourceVersion();
+        if (StringUtils.hasText(resourceVersion) && !resourceVersion.equals(currentVersion)) {
+            throw new OptimisticLockingFailureException(String.format("CR %s has been modified", id));
+        }
 
-        //schema validation
-        Set<ValidationMessage> errors = validateCR(schema, request.getCr());
+        //apply locally and validate the result
+        GenericKubernetesResource patched;
+        try {
+            JsonNode source = Serialization.jsonMapper().valueToTree(cr);
+            JsonNode target = type == PatchType.JSON ? jsonPatch(source, patch) : mergePatch(source, patch);
+            patched = Serialization.jsonMapper().treeToValue(target, GenericKubernetesResource.class);
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
+        } catch (RuntimeException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid patch: " + e.getMessage());
+        }
+        if (patched.getMetadata() == null || !id.equals(patched.getMetadata().getName()) || !hasCreatedByLabel(patched)) {
+            throw new IllegalArgumentException("Patch can not change the name or the ownership of the CR");
+        }
+        Set<ValidationMessage> errors = validateCR(jsonSchema, patched);
         if (!errors.isEmpty()) {
             throw new ValidationException(errors);
         }
 
-        return new IdAwareCustomResource(
-            client
-                .resource(cr.get())
-                .edit(object -> {
-                    object.setAdditionalProperties(request.getCr().getAdditionalProperties());
-                    // preserve ownership label
-                    if (StringUtils.hasText(createdByLabel)) {
-                        if (object.getMetadata().getLabels() == null) {
-                            object.getMetadata().setLabels(new HashMap<>());
-                        }
-                        object.getMetadata().getLabels().put(LABEL, createdByLabel);
-                    }
-                    return object;
-                })
-        );
+        //send the patch, conditional on the version it was validated against
+        JsonNode body;
+        if (type == PatchType.JSON) {
+            // the API server rejects a patched object whose resourceVersion differs from the stored one
+            ArrayNode ops = ((ArrayNode) patch).deepCopy();
+            ops.addObject().put("op", "replace").put("path", "/metadata/resourceVersion").put("value", currentVersion);
+            body = ops;
+        } else {
+            ObjectNode merge = ((ObjectNode) patch).deepCopy();
+            JsonNode metadata = merge.get("metadata");
+            (metadata instanceof ObjectNode ? (ObjectNode) metadata : merge.putObject("metadata")).put(
+                "resourceVersion",
+                currentVersion
+            );
+            body = merge;
+        }
+
+        // send the patch directly: with a name only, the client would read the CR again before patching
+        try {
+            return new IdAwareCustomResource(
+                client
+                    .genericKubernetesResources(context)
+                    .inNamespace(namespace)
+                    .resource(cr)
+                    .patch(PatchContext.of(type), body.toString())
+            );
+        } catch (KubernetesClientException e) {
+            throw conflictOf(e, id);
+        }
+    }
+
+    // RFC 6902 patch, applied one operation at a time to evaluate test operations
+    private static JsonNode jsonPatch(JsonNode source, JsonNode patch) {
+        JsonNode target = source;
+        for (JsonNode op : patch) {
+            if ("test".equals(op.path("op").asText())) {
+                if (!op.path("value").equals(target.at(op.path("path").asText()))) {
+                    throw new OptimisticLockingFailureException("Patch test failed at " + op.path("path").asText());
+                }
+            } else {
+                target = JsonPatch.apply(Serialization.jsonMapper().createArrayNode().add(op), target);
+            }
+        }
+        return target;
+    }
+
+    // RFC 7386 merge patch
+    private static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject()
+            ? ((ObjectNode) target).deepCopy()
+            : Serialization.jsonMapper().createObjectNode();
+        patch
+            .fields()
+            .forEachRemaining(e -> {
+                if (e.getValue().isNull()) {
+                    result.remove(e.getKey());
+                } else {
+                    result.set(e.getKey(), mergePatch(result.get(e.getKey()), e.getValue()));
+                }
+            });
+        return result;
     }
 
     /**
@@ -323,18 +708,253 @@ public class CustomResourceService {
             throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
         }
 
-        String storedVersion = crdService.fetchStoredVersionName(crdId);
-        checkSchema(crdId, storedVersion);
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        checkSchema(crdId, context.getVersion());
+        remove(context, id, namespace);
+    }
+
+    /**
+     * Apply a list of create, update and delete operations to the CRs of the specified CRD and namespace.
+     * CRD and schema are resolved once for the whole request, and the operations are run concurrently
+     * (at most {@code kubernetes.cr.bulk-parallelism} at a time). The failure of an operation does not
+     * affect the others: each one gets its own result.
+     * @param crdId
+     * @param operations
+     * @param namespace
+     * @return the results, in the order of the operations
+     */
+    public List<BulkResultDTO> bulk(String crdId, List<BulkOperationDTO> operations, String namespace) {
+        if (!authService.isCrdAllowed(crdId)) {
+            throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
+        }
+        if (operations == null) {
+            throw new IllegalArgumentException(SystemKeys.ERROR_NULL_INPUT);
+        }
+        if (operations.size() > bulkMaxItems) {
+            throw new IllegalArgumentException(String.format("At most %d operations are allowed", bulkMaxItems));
+        }
+        if (operations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        CustomResourceDefinitionContext context = crdService.fetchStoredContext(crdId);
+        JsonSchema jsonSchema = schemaService.getJsonSchema(checkSchema(crdId, context.getVersion()));
+
+        return callExecutor.map(operations, op -> apply(context, jsonSchema, op, namespace), bulkParallelism);
+    }
+
+    private BulkResultDTO apply(
+        CustomResourceDefinitionContext context,
+        JsonSchema jsonSchema,
+        BulkOperationDTO operation,
+        String namespace
+    ) {
+        BULK_OP op = operation.getOp();
+        GenericKubernetesResource cr = operation.getResource() != null ? operation.getResource().getCr() : null;
+        String id = operation.getId();
+        if (id == null && cr != null && cr.getMetadata() != null) {
+            id = cr.getMetadata().getName();
+        }
+
+        BulkResultDTO result = new BulkResultDTO(op, id, HttpStatus.OK.value());
+        try {
+            if (op == null) {
+                throw new IllegalArgumentException("Operation is required");
+            }
+            if (op != BULK_OP.create && (id == null || !id.matches(SystemKeys.REGEX_CR_ID))) {
+                throw new IllegalArgumentException("Invalid CR ID");
+            }
+            if (op != BULK_OP.delete) {
+                if (cr == null) {
+                    throw new IllegalArgumentException(SystemKeys.ERROR_NULL_INPUT);
+                }
+                checkVersion(context, cr);
+            }
+
+            switch (op) {
+                case create:
+                    result.setResource(create(context, jsonSchema, cr, namespace));
+                    result.setId(result.getResource().getId());
+                    result.setStatus(HttpStatus.CREATED.value());
+                    break;
+                case update:
+                    result.setResource(replace(context, jsonSchema, id, cr, namespace));
+                    break;
+                case delete:
+                    remove(context, id, namespace);
+                    result.setStatus(HttpStatus.NO_CONTENT.value());
+                    break;
+            }
+        } catch (RuntimeException e) {
+            result.setStatus(statusOf(e).value());
+            result.setMessage(e instanceof KubernetesClientException kce && kce.getStatus() != null
+                ? kce.getStatus().getMessage()
+                : e.getMessage());
+            logger.debug("Bulk {} of CR {} failed: {}", op, id, result.getMessage());
+        }
+        return result;
+    }
+
+    // same mapping as the API exception handler, with K8S errors keeping their own code
+    private static HttpStatus statusOf(RuntimeException e) {
+        if (e instanceof NoSuchElementException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof AccessDeniedException) {
+            return HttpStatus.FORBIDDEN;
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            return HttpStatus.CONFLICT;
+        }
+        if (e instanceof IllegalArgumentException || e instanceof ValidationException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (e instanceof KubernetesClientException kce) {
+            HttpStatus status = HttpStatus.resolve(kce.getCode());
+            return status != null ? status : HttpStatus.BAD_REQUEST;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private static void checkVersion(CustomResourceDefinitionContext context, GenericKubernetesResource cr) {
+        String version = cr.getApiVersion().split("/")[1];
+        if (!version.equals(context.getVersion())) {
+            throw new IllegalArgumentException(String.format("Version %s is not stored", version));
+        }
+    }
+
+    private IdAwareCustomResource create(
+        CustomResourceDefinitionContext context,
+        JsonSchema jsonSchema,
+        GenericKubernetesResource cr,
+        String namespace
+    ) {
+        //schema validation
+        Set<ValidationMessage> errors = validateCR(jsonSchema, cr);
+        if (!errors.isEmpty()) {
+            throw new ValidationException(errors);
+        }
+
+        // inject ownership label
+        if (StringUtils.hasText(createdByLabel)) {
+            Map<String, String> labels = cr.getMetadata().getLabels();
+            if (labels == null) {
+                labels = new HashMap<>();
+                cr.getMetadata().setLabels(labels);
+            }
+            labels.put(LABEL, createdByLabel);
+        }
+
+        GenericKubernetesResource created = client.resource(cr).inNamespace(namespace).create();
+        invalidateNames(context, namespace);
+        return new IdAwareCustomResource(created);
+    }
+
+    private IdAwareCustomResource replace(
+        CustomResourceDefinitionContext context,
+        JsonSchema jsonSchema,
+        String id,
+        GenericKubernetesResource request,
+        String namespace
+    ) {
+        GenericKubernetesResource cr = fetchCustomResource(context, id, namespace);
+        if (cr == null) {
+            throw new NoSuchElementException(SystemKeys.ERROR_NO_CR_WITH_VERSION);
+        }
+        if (!hasCreatedByLabel(cr)) {
+            throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
+        }
+
+        //schema validation
+        Set<ValidationMessage> errors = validateCR(jsonSchema, request);
+        if (!errors.isEmpty()) {
+            throw new ValidationException(errors);
+        }
 
-        CustomResourceDefinitionContext context = createCrdContext(crdId, storedVersion);
-        NamespaceableResource<GenericKubernetesResource> cr = fetchCustomResource(context, id, namespace);
+        if (serverSideApply) {
+            // apply only the fields managed by KRM: conflicts with other managers are rejected, not forced
+            GenericKubernetesResource apply = new GenericKubernetesResourceBuilder()
+                .withApiVersion(cr.getApiVersion())
+                .withKind(cr.getKind())
+                .withNewMetadata()
+                .withName(id)
+                .withNamespace(namespace)
+                .withLabels(StringUtils.hasText(createdByLabel) ? Map.of(LABEL, createdByLabel) : null)
+                .endMetadata()
+                .build();
+            apply.setAdditionalProperties(request.getAdditionalProperties());
+            try {
+                return new IdAwareCustomResource(
+                    client
+                        .genericKubernetesResources(context)
+                        .inNamespace(namespace)
+                        .resource(apply)
+                        .fieldManager(fieldManager)
+                        .serverSideApply()
+                );
+            } catch (KubernetesClientException e) {
+                throw conflictOf(e, id);
+            }
+        }
+
+        // send the PUT directly, conditional on the version the client read, or else on the one checked here.
+        // The fetched object may be shared with the informer store
+        GenericKubernetesResource updated = Serialization.clone(cr);
+        updated.setAdditionalProperties(request.getAdditionalProperties());
+        if (request.getMetadata() != null && StringUtils.hasText(request.getMetadata().getResourceVersion())) {
+            updated.getMetadata().setResourceVersion(request.getMetadata().getResourceVersion());
+        }
+        // preserve ownership label
+        if (StringUtils.hasText(createdByLabel)) {
+            if (updated.getMetadata().getLabels() == null) {
+                updated.getMetadata().setLabels(new HashMap<>());
+            }
+            updated.getMetadata().getLabels().put(LABEL, createdByLabel);
+        }
+        try {
+            return new IdAwareCustomResource(
+                client.genericKubernetesResources(context).inNamespace(namespace).resource(updated).update()
+            );
+        } catch (KubernetesClientException e) {
+            throw conflictOf(e, id);
+        }
+    }
+
+    // conflicts with the stored version, or with other field managers, are reported as such
+    private static RuntimeException conflictOf(KubernetesClientException e, String id) {
+        if (e.getCode() == HttpStatus.CONFLICT.value()) {
+            return new OptimisticLockingFailureException(String.format("CR %s has been modified", id));
+        }
+        return e;
+    }
+
+    private void remove(CustomResourceDefinitionContext context, String id, String namespace) {
+        GenericKubernetesResource cr = fetchCustomResource(context, id, namespace);
 
         //if version is not found, these CRD and version do not exist in Kubernetes and an error is thrown
         if (cr != null) {
-            if (!hasCreatedByLabel(cr.get())) {
+            if (!hasCreatedByLabel(cr)) {
                 throw new AccessDeniedException(SystemKeys.ERROR_CRD_NOT_ALLOWED);
             }
-            cr.delete();
+            client.genericKubernetesResources(context).inNamespace(namespace).withName(id).delete();
+            invalidateNames(context, namespace);
+        }
+    }
+
+    /**
+     * Informers and indexes of the CRs of a namespace
+     */
+    private static class Shard {
+
+        // crdId/version -> informer of the CRs
+        private final ConcurrentHashMap<String, SharedIndexInformer<GenericKubernetesResource>> informers = new ConcurrentHashMap<>();
+        // crdId/version -> index of the CRs created by KRM, sorted by id
+        private final ConcurrentHashMap<String, SortedIndex<IdAwareCustomResource>> indexes = new ConcurrentHashMap<>();
+
+        void stop() {
+            informers.values().forEach(SharedIndexInformer::stop);
+            informers.clear();
+            indexes.clear();
         }
     }
 }
@@ -4,9 +4,14 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
 
 /**
  * K8S Resource access authorization service. Defines properties and methods to control the access to K8S resources
@@ -31,28 +36,55 @@ public class K8SAuthorizationService {
     @Value("${kubernetes.selector.quota}")
     private String quotaSelector;
 
+    private List<String> serviceSelectors;
+    private List<String> deploymentSelectors;
+    private List<String> jobSelectors;
+    private List<String> pvcSelectors;
+    private List<String> quotaSelectors;
+
+    @PostConstruct
+    public void initSelectors() {
+        serviceSelectors = parseSelectors(serviceSelector);
+        deploymentSelectors = parseSelectors(deploymentSelector);
+        jobSelectors = parseSelectors(jobSelector);
+        pvcSelectors = parseSelectors(pvcSelector);
+        quotaSelectors = parseSelectors(quotaSelector);
+    }
+
+    /**
+     * Split pipe-separated label selectors. An empty value corresponds to a single empty selector (all resources).
+     * @param selector
+     * @return
+     */
+    static List<String> parseSelectors(String selector) {
+        if (!StringUtils.hasText(selector)) {
+            return Collections.singletonList("");
+        }
+        return Arrays.stream(selector.split("\\|")).map(String::trim).filter(StringUtils::hasText).distinct().toList();
+    }
+
     public boolean isCrdAllowed(String crdId) {
         return allowedCrds.contains(crdId) || (allowedCrds.isEmpty() && !deniedCrds.contains(crdId));
     }
 
-    public String getServiceSelector() {
-        return serviceSelector;
+    public List<String> getServiceSelectors() {
+        return serviceSelectors;
     }
 
-    public String getDeploymentSelector() {
-        return deploymentSelector;
+    public List<String> getDeploymentSelectors() {
+        return deploymentSelectors;
     }
 
-    public String getJobSelector() {
-        return jobSelector;
+    public List<String> getJobSelectors() {
+        return jobSelectors;
     }
 
-    public String getPVCSelector() {
-        return pvcSelector;
+    public List<String> getPVCSelectors() {
+        return pvcSelectors;
     }
 
-    public String getQuotaSelector() {
-        return quotaSelector;
+    public List<String> getQuotaSelectors() {
+        return quotaSelectors;
     }
 
 }
@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded executor for blocking K8S API calls issued concurrently (e.g. lookups of multiple resources).
+ * The number of concurrent calls is capped by {@code kubernetes.client.parallelism}.
+ */
+@Component
+public class K8SCallExecutor {
+
+    private final ExecutorService executor;
+
+    public K8SCallExecutor(@Value("${kubernetes.client.parallelism:8}") int parallelism) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "k8s-call-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), factory);
+    }
+
+    /**
+     * Apply the call to each input concurrently and wait for all the results.
+     * Results are returned in the iteration order of the inputs. If any call fails,
+     * the first failure is rethrown.
+     * @param inputs
+     * @param call
+     * @return
+     */
+    public <I, R> List<R> map(Collection<I> inputs, Function<I, R> call) {
+        if (inputs.size() == 1) {
+            // no need to switch thread
+            List<R> result = new ArrayList<>(1);
+            result.add(call.apply(inputs.iterator().next()));
+            return result;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+        inputs.forEach(i -> futures.add(CompletableFuture.supplyAsync(() -> call.apply(i), executor)));
+
+        List<R> result = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<R> f : futures) {
+                result.add(f.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Apply the call to each input with at most {@code limit} calls in flight, on top of the executor bound.
+     * Inputs are split into {@code limit} lanes, each processed sequentially.
+     * @param inputs
+     * @param call
+     * @param limit max concurrent calls, 0 for no additional limit
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <I, R> List<R> map(Collection<I> inputs, Function<I, R> call, int limit) {
+        if (limit <= 0 || limit >= inputs.size()) {
+            return map(inputs, call);
+        }
+
+        List<I> list = new ArrayList<>(inputs);
+        Object[] result = new Object[list.size()];
+        List<Integer> lanes = IntStream.range(0, limit).boxed().collect(Collectors.toList());
+        map(
+            lanes,
+            lane -> {
+                for (int i = lane; i < list.size(); i += limit) {
+                    result[i] = call.apply(list.get(i));
+                }
+                return null;
+            }
+        );
+        return (List<R>) Arrays.asList(result);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
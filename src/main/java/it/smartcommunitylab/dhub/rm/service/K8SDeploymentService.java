@@ -4,19 +4,24 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Service for K8S Deployment resource
@@ -24,31 +29,64 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 @Service
 public class K8SDeploymentService extends K8SResourceService<Deployment> {
     
-    public K8SDeploymentService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    public K8SDeploymentService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
     }
 
     public static final Logger logger = LoggerFactory.getLogger(K8SSvcService.class);
 
+    /**
+     * Build the list operations of the namespace, one for each configured selector.
+     * @param namespace
+     * @return
+     */
+    private Map<String, FilterWatchListDeletable<Deployment, DeploymentList, RollableScalableResource<Deployment>>> queries(String namespace) {
+        Map<String, FilterWatchListDeletable<Deployment, DeploymentList, RollableScalableResource<Deployment>>> queries = new LinkedHashMap<>();
+        getAuthService().getDeploymentSelectors().forEach(s -> queries.put(s, getKubernetesClient().apps().deployments().inNamespace(namespace).withLabelSelector(s)));
+        return queries;
+    }
+
     @Override
     protected List<Deployment> getItems(String namespace) {
-        return java.util.Arrays.asList(getAuthService().getDeploymentSelector().split("\\|")).stream()
-                    .map(s -> getKubernetesClient().apps().deployments().inNamespace(namespace).withLabelSelector(s).list().getItems())
-                    .flatMap(Collection::stream).collect(Collectors.toList());
+        return listAll(queries(namespace));
+    }
+
+    @Override
+    protected List<FilterWatchListDeletable<Deployment, DeploymentList, RollableScalableResource<Deployment>>> getInformables(String namespace) {
+        return new ArrayList<>(queries(namespace).values());
     }
 
     /**
      * Get job log
      * @param namespace
      * @param jobId
+     * @param tailLines
+     * @param sinceSeconds
+     * @param limitBytes
+     * @return
+     */
+    public List<String> getLog(String namespace, String jobId, Integer tailLines, Integer sinceSeconds, Integer limitBytes) {
+        return K8SLogs.readLines(K8SLogs.withOptions(getKubernetesClient().apps().deployments().inNamespace(namespace).withName(jobId), tailLines, sinceSeconds, limitBytes));
+    }
+
+    /**
+     * Open the deployment log as a stream, optionally following it. The caller must close the stream.
+     * @param namespace
+     * @param jobId
+     * @param tailLines
+     * @param sinceSeconds
+     * @param limitBytes
+     * @param follow
      * @return
      */
-    public List<String> getLog(String namespace, String jobId) {
-        String log = getKubernetesClient().apps().deployments().inNamespace(namespace).withName(jobId).getLog();
-        if (StringUtils.hasText(log)) {
-            return Arrays.asList(log.split("\n"));
-        }
-        return Collections.emptyList();
+    public InputStream streamLog(String namespace, String jobId, Integer tailLines, Integer sinceSeconds, Integer limitBytes, boolean follow) {
+        return K8SLogs.open(K8SLogs.withOptions(getKubernetesClient().apps().deployments().inNamespace(namespace).withName(jobId), tailLines, sinceSeconds, limitBytes), follow);
     }
     
 
@@ -4,36 +4,61 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.ScalableResource;
+import io.micrometer.core.instrument.MeterRegistry;
 /**
  * Service for K8S Job resource
  */
 @Service
 public class K8SJobService extends K8SResourceService<Job> {
     
-    public K8SJobService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    public K8SJobService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
     }
 
     public static final Logger logger = LoggerFactory.getLogger(K8SSvcService.class);
 
+    /**
+     * Build the list operations of the namespace, one for each configured selector.
+     * @param namespace
+     * @return
+     */
+    private Map<String, FilterWatchListDeletable<Job, JobList, ScalableResource<Job>>> queries(String namespace) {
+        Map<String, FilterWatchListDeletable<Job, JobList, ScalableResource<Job>>> queries = new LinkedHashMap<>();
+        getAuthService().getJobSelectors().forEach(s -> queries.put(s, getKubernetesClient().batch().v1().jobs().inNamespace(namespace).withLabelSelector(s)));
+        return queries;
+    }
+
     @Override
     protected List<Job> getItems(String namespace) {
-        return java.util.Arrays.asList(getAuthService().getJobSelector().split("\\|")).stream()
-                    .map(s -> getKubernetesClient().batch().v1().jobs().inNamespace(namespace).withLabelSelector(s).list().getItems())
-                    .flatMap(Collection::stream).collect(Collectors.toList());
+        return listAll(queries(namespace));
+    }
+
+    @Override
+    protected List<FilterWatchListDeletable<Job, JobList, ScalableResource<Job>>> getInformables(String namespace) {
+        return new ArrayList<>(queries(namespace).values());
     }
 
     /**
@@ -50,14 +75,27 @@ public class K8SJobService extends K8SResourceService<Job> {
      * Get job log
      * @param namespace
      * @param jobId
+     * @param tailLines
+     * @param sinceSeconds
+     * @param limitBytes
+     * @return
+     */
+    public List<String> getLog(String namespace, String jobId, Integer tailLines, Integer sinceSeconds, Integer limitBytes) {
+        return K8SLogs.readLines(K8SLogs.withOptions(getKubernetesClient().batch().v1().jobs().inNamespace(namespace).withName(jobId), tailLines, sinceSeconds, limitBytes));
+    }
+
+    /**
+     * Open the job log as a stream, optionally following it. The caller must close the stream.
+     * @param namespace
+     * @param jobId
+     * @param tailLines
+     * @param sinceSeconds
+     * @param limitBytes
+     * @param follow
      * @return
      */
-    public List<String> getLog(String namespace, String jobId) {
-        String log = getKubernetesClient().batch().v1().jobs().inNamespace(namespace).withName(jobId).getLog();
-        if (StringUtils.hasText(log)) {
-            return Arrays.asList(log.split("\n"));
-        }
-        return Collections.emptyList();
+    public InputStream streamLog(String namespace, String jobId, Integer tailLines, Integer sinceSeconds, Integer limitBytes, boolean follow) {
+        return K8SLogs.open(K8SLogs.withOptions(getKubernetesClient().batch().v1().jobs().inNamespace(namespace).withName(jobId), tailLines, sinceSeconds, limitBytes), follow);
     }
 
 }
@@ -0,0 +1,92 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.dsl.BytesLimitTerminateTimeTailPrettyLoggable;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import io.fabric8.kubernetes.client.dsl.Loggable;
+import io.fabric8.kubernetes.client.dsl.TailPrettyLoggable;
+import io.fabric8.kubernetes.client.dsl.TimeTailPrettyLoggable;
+
+/**
+ * Helpers to read the logs of pod controllers (jobs, deployments) without loading them as a whole.
+ */
+final class K8SLogs {
+
+    private K8SLogs() {}
+
+    /**
+     * Apply the log options to the resource. Null options are not applied.
+     * @param resource
+     * @param tailLines number of lines from the end of the log
+     * @param sinceSeconds relative time in seconds before the current time
+     * @param limitBytes maximum number of bytes to read
+     * @return
+     */
+    static Loggable withOptions(
+        BytesLimitTerminateTimeTailPrettyLoggable resource,
+        Integer tailLines,
+        Integer sinceSeconds,
+        Integer limitBytes
+    ) {
+        TimeTailPrettyLoggable limited = limitBytes != null ? resource.limitBytes(limitBytes) : resource;
+        TailPrettyLoggable since = sinceSeconds != null ? limited.sinceSeconds(sinceSeconds) : limited;
+        return tailLines != null ? since.tailingLines(tailLines) : since;
+    }
+
+    /**
+     * Read the log line by line
+     * @param log
+     * @return
+     */
+    static List<String> readLines(Loggable log) {
+        List<String> lines = new ArrayList<>();
+        try (Reader reader = log.getLogReader(); BufferedReader br = reader != null ? new BufferedReader(reader) : null) {
+            if (br != null) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    /**
+     * Open the log as a stream. In follow mode the stream stays open while new lines are written,
+     * until it is closed or the container terminates. The caller must close the stream.
+     * @param log
+     * @param follow
+     * @return
+     */
+    static InputStream open(Loggable log, boolean follow) {
+        if (!follow) {
+            InputStream in = log.getLogInputStream();
+            return in != null ? in : InputStream.nullInputStream();
+        }
+        LogWatch watch = log.watchLog();
+        return new FilterInputStream(watch.getOutput()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    watch.close();
+                }
+            }
+        };
+    }
+}
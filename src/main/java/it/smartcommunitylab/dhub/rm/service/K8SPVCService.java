@@ -4,26 +4,45 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimList;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.storage.StorageClass;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.model.dto.PersistentVolumeClaimDTO;
 import it.smartcommunitylab.dhub.rm.model.dto.PersistentVolumeClaimDTO.PVC_VOLUME_MODE;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Service for K8S Persistent Volume Claim resource
@@ -31,36 +50,136 @@ import jakarta.annotation.PostConstruct;
 @Service
 public class K8SPVCService extends K8SResourceService<PersistentVolumeClaim> {
     
-    private List<IdAwareResource<StorageClass>> storageClasses;
+    private final StartupTasks startupTasks;
+
+    // accepted storage classes, sorted by name. Replaced as a whole on each change
+    private volatile List<IdAwareResource<StorageClass>> storageClasses = Collections.emptyList();
+    private Set<String> acceptedSet = Collections.emptySet();
+    private SharedIndexInformer<StorageClass> storageClassInformer;
+
+    // cache the whole list as a single entity, when informers are disabled. Stale list is served while reloading
+    private final LoadingCache<String, List<IdAwareResource<StorageClass>>> storageClassCache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(60, TimeUnit.SECONDS)
+        .build(CacheLoader.from(key -> buildStorageClasses(getKubernetesClient().storage().v1().storageClasses().list().getItems())));
 
     @Value("${kubernetes.pvc.managed-by}")
     private String managedByLabel;
     @Value("${kubernetes.pvc.storage-classes}")
     private String acceptedStorageClasses;
 
-    public K8SPVCService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    public K8SPVCService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        StartupTasks startupTasks,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
+        this.startupTasks = startupTasks;
     }
 
     @PostConstruct
     public void init() {
-        List<IdAwareResource<StorageClass>> all = getKubernetesClient().storage().v1().storageClasses().list().getItems().stream().map(IdAwareResource::new).toList();
-         if (StringUtils.hasText(acceptedStorageClasses)) {
-            Set<String> acceptedSet = StringUtils.commaDelimitedListToSet(acceptedStorageClasses);
-            storageClasses = all.stream().filter(c -> acceptedSet.contains(c.getResource().getMetadata().getName())).toList();
+        if (StringUtils.hasText(acceptedStorageClasses)) {
+            acceptedSet = StringUtils.commaDelimitedListToSet(acceptedStorageClasses);
+        }
+        startupTasks.submit("storage-classes", this::loadStorageClasses);
+    }
+
+    private void loadStorageClasses() {
+        if (isInformerEnabled()) {
+            startStorageClassInformer();
         } else {
-            storageClasses = all; 
+            storageClassCache.getUnchecked("");
+        }
+    }
+
+    /**
+     * Build the list of the accepted storage classes
+     * @param list
+     * @return
+     */
+    private List<IdAwareResource<StorageClass>> buildStorageClasses(Collection<StorageClass> list) {
+        List<IdAwareResource<StorageClass>> result = list
+            .stream()
+            .filter(c -> acceptedSet.isEmpty() || acceptedSet.contains(c.getMetadata().getName()))
+            .sorted(Comparator.comparing(c -> c.getMetadata().getName()))
+            .map(IdAwareResource::new)
+            .toList();
+        storageClasses = result;
+        return result;
+    }
+
+    /**
+     * Start the storage class informer: the list is rebuilt from the informer store on each change.
+     */
+    private synchronized void startStorageClassInformer() {
+        if (storageClassInformer != null) {
+            return;
+        }
+        ResourceEventHandler<StorageClass> handler = new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(StorageClass obj) {
+                onStorageClassChange();
+            }
+
+            @Override
+            public void onUpdate(StorageClass oldObj, StorageClass newObj) {
+                onStorageClassChange();
+            }
+
+            @Override
+            public void onDelete(StorageClass obj, boolean deletedFinalStateUnknown) {
+                onStorageClassChange();
+            }
+        };
+        SharedIndexInformer<StorageClass> i = getKubernetesClient().storage().v1().storageClasses().runnableInformer(0);
+        i.addEventHandler(handler);
+        // blocks until the initial list is in the store
+        i.run();
+        storageClassInformer = i;
+        onStorageClassChange();
+    }
+
+    private synchronized void onStorageClassChange() {
+        // initial list events are collapsed into a single rebuild once synced
+        if (storageClassInformer != null) {
+            buildStorageClasses(storageClassInformer.getStore().list());
+        }
+    }
+
+    /**
+     * Stop the storage class informer
+     */
+    @PreDestroy
+    public void stopStorageClassInformer() {
+        if (storageClassInformer != null) {
+            storageClassInformer.stop();
         }
     }
 
     public static final Logger logger = LoggerFactory.getLogger(K8SPVCService.class);
 
+    /**
+     * Build the list operations of the namespace, one for each configured selector.
+     * @param namespace
+     * @return
+     */
+    private Map<String, FilterWatchListDeletable<PersistentVolumeClaim, PersistentVolumeClaimList, Resource<PersistentVolumeClaim>>> queries(String namespace) {
+        Map<String, FilterWatchListDeletable<PersistentVolumeClaim, PersistentVolumeClaimList, Resource<PersistentVolumeClaim>>> queries = new LinkedHashMap<>();
+        getAuthService().getPVCSelectors().forEach(s -> queries.put(s, getKubernetesClient().persistentVolumeClaims().inNamespace(namespace).withLabelSelector(s)));
+        return queries;
+    }
+
     @Override
     protected List<PersistentVolumeClaim> getItems(String namespace) {
-            return java.util.Arrays.asList(getAuthService().getPVCSelector().split("\\|")).stream()
-                        .map(s -> getKubernetesClient().persistentVolumeClaims().inNamespace(namespace).withLabelSelector(s).list().getItems())
-                        .flatMap(Collection::stream).collect(Collectors.toList());
+        return listAll(queries(namespace));
+    }
 
+    @Override
+    protected List<FilterWatchListDeletable<PersistentVolumeClaim, PersistentVolumeClaimList, Resource<PersistentVolumeClaim>>> getInformables(String namespace) {
+        return new ArrayList<>(queries(namespace).values());
     }
 
     /**
@@ -68,9 +187,25 @@ public class K8SPVCService extends K8SResourceService<PersistentVolumeClaim> {
      * @return List of available storage classes
      */
     public List<IdAwareResource<StorageClass>> listStorageClasses() {
+        if (!isInformerEnabled()) {
+            try {
+                return storageClassCache.getUnchecked("");
+            } catch (UncheckedExecutionException e) {
+                logger.error("Error reading storage classes: {}", e.getMessage());
+            }
+        }
         return storageClasses;
     }
 
+    /**
+     * Check if the storage class can be used for new PVCs
+     * @param name
+     * @return
+     */
+    public boolean isStorageClassAvailable(String name) {
+        return listStorageClasses().stream().anyMatch(c -> c.getResource().getMetadata().getName().equals(name));
+    }
+
     /**
      * Add new PersistentVolumeClaim to the namespace. The name, storage class, volume mode and name, access modes and requested space are defined by the provided DTO object.
      * @param namespace
@@ -78,6 +213,9 @@ public class K8SPVCService extends K8SResourceService<PersistentVolumeClaim> {
      * @return
      */
     public IdAwareResource<PersistentVolumeClaim> add(String namespace, PersistentVolumeClaimDTO dto) {
+        if (dto.getStorageClassName() != null && !isStorageClassAvailable(dto.getStorageClassName())) {
+            throw new IllegalArgumentException(SystemKeys.ERROR_NO_STORAGE_CLASS);
+        }
         PersistentVolumeClaim persistentVolumeClaim = new PersistentVolumeClaimBuilder()
         .withNewMetadata()
             .withName(dto.getName())
@@ -96,8 +234,8 @@ public class K8SPVCService extends K8SResourceService<PersistentVolumeClaim> {
 
         getResourceCache().invalidate(namespace);
         getKubernetesClient().persistentVolumeClaims().inNamespace(namespace).resource(persistentVolumeClaim).item();
-        getKubernetesClient().persistentVolumeClaims().inNamespace(namespace).resource(persistentVolumeClaim).serverSideApply();
-        return findById(namespace, dto.getName());
+        // return the applied object: in informer mode the store may not have received it yet
+        return new IdAwareResource<>(getKubernetesClient().persistentVolumeClaims().inNamespace(namespace).resource(persistentVolumeClaim).serverSideApply());
     }
 
     /**
@@ -4,15 +4,22 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import io.fabric8.kubernetes.api.model.ResourceQuota;
+import io.fabric8.kubernetes.api.model.ResourceQuotaList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Service for K8S Resource Quota resource
@@ -22,14 +29,34 @@ public class K8SQuotaService extends K8SResourceService<ResourceQuota> {
 
     public static final Logger logger = LoggerFactory.getLogger(K8SPVCService.class);
 
-    public K8SQuotaService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    public K8SQuotaService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
+    }
+
+    /**
+     * Build the list operations of the namespace, one for each configured selector.
+     * @param namespace
+     * @return
+     */
+    private Map<String, FilterWatchListDeletable<ResourceQuota, ResourceQuotaList, Resource<ResourceQuota>>> queries(String namespace) {
+        Map<String, FilterWatchListDeletable<ResourceQuota, ResourceQuotaList, Resource<ResourceQuota>>> queries = new LinkedHashMap<>();
+        getAuthService().getQuotaSelectors().forEach(s -> queries.put(s, getKubernetesClient().resourceQuotas().inNamespace(namespace).withLabelSelector(s)));
+        return queries;
     }
 
     @Override
     protected List<ResourceQuota> getItems(String namespace) {
-            return java.util.Arrays.asList(getAuthService().getQuotaSelector().split("\\|")).stream()
-                        .map(s -> getKubernetesClient().resourceQuotas().inNamespace(namespace).withLabelSelector(s).list().getItems())
-                        .flatMap(Collection::stream).collect(Collectors.toList());
+        return listAll(queries(namespace));
+    }
+
+    @Override
+    protected List<FilterWatchListDeletable<ResourceQuota, ResourceQuotaList, Resource<ResourceQuota>>> getInformables(String namespace) {
+        return new ArrayList<>(queries(namespace).values());
     }
 }
@@ -4,74 +4,162 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
+import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Informable;
+import io.fabric8.kubernetes.client.dsl.Listable;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.Pattern;
 
 /**
  * Base class for service facade for the K8S resources.
  * Defines resource cache grouping resources to namespaces.
+ * When informer mode is enabled, resources are kept up to date by informers (list once, then watch)
+ * and read directly from the informer stores.
  */
 public abstract class K8SResourceService<T extends HasMetadata> {
     
     public static final Logger logger = LoggerFactory.getLogger(K8SResourceService.class);
 
+    // heap size of a resource relative to its JSON representation: object headers, maps and strings
+    private static final int HEAP_RATIO = 2;
+
+    private final SortedIndex<IdAwareResource<T>> emptyIndex = SortedIndex.of(IdAwareResource::getId, java.util.Collections.emptyList());
+
     private final KubernetesClient client;
     private final K8SAuthorizationService authService;
+    private final K8SCallExecutor callExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubernetes.cache.informer:false}")
+    private boolean informerEnabled;
+
+    // namespace -> resources, sorted by id once per load. Bounded by the estimated size of the resources
+    private final LoadingCache<String, CachedIndex<T>> resourceCache;
+    private final long cacheMaxBytes;
 
-    private ConcurrentHashMap<String, java.util.Map<String,IdAwareResource<T>>> resourceMap = new ConcurrentHashMap<>();
-    private LoadingCache<String, java.util.Map<String, IdAwareResource<T>>> resourceCache;
+    // namespace -> informers, one for each list/watch operation. Completed once the initial lists are done
+    private ConcurrentHashMap<String, CompletableFuture<List<SharedIndexInformer<T>>>> informers = new ConcurrentHashMap<>();
+    // namespace -> index of the informer stores, updated on each change
+    private ConcurrentHashMap<String, SortedIndex<IdAwareResource<T>>> storeIndexes = new ConcurrentHashMap<>();
 
     public K8SResourceService(
         KubernetesClient client,
         K8SAuthorizationService authService,
-        int cacheExpirationSec
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        int cacheExpirationSec,
+        DataSize cacheMaxSize
     ) {
         Assert.notNull(client, "Client required");
         this.client = client;
         this.authService = authService;
+        this.callExecutor = callExecutor;
+        this.meterRegistry = meterRegistry;
+        this.cacheMaxBytes = cacheMaxSize.toBytes();
 
         // loading cache to group resources for the namespace
         resourceCache = CacheBuilder.newBuilder()
         .expireAfterWrite(cacheExpirationSec, TimeUnit.SECONDS)
-        .build(
-            new CacheLoader<String, java.util.Map<String, IdAwareResource<T>>>() {
-                @Override
-                public java.util.Map<String, IdAwareResource<T>> load(String key) throws Exception {
-                List<IdAwareResource<T>> items = getItems(key).stream()
-                    .map(IdAwareResource::new)
-                    .collect(Collectors.toList()); 
-
-                    synchronized(resourceMap) {
-                        resourceMap.put(key, new java.util.HashMap<>());
-                        items.forEach(s -> {
-                            resourceMap.get(key).put(s.getId(), s);
-                        });
-                    }
-                    return resourceMap.get(key);
-                }    
-            }
-        );
+        // single segment, so that the bound applies to the whole cache and not to a fraction of it.
+        // loads are not performed under the segment lock
+        .concurrencyLevel(1)
+        .maximumWeight(cacheMaxBytes)
+        .weigher((String namespace, CachedIndex<T> entry) -> entry.size)
+        .recordStats()
+        .build(CacheLoader.from(this::loadIndex));
+
+        String service = getClass().getSimpleName();
+        GuavaCacheMetrics.monitor(meterRegistry, resourceCache, "krm.resources", "service", service);
+        Gauge
+            .builder("krm.resources.size", resourceCache, c -> c.asMap().values().stream().mapToLong(e -> e.size).sum())
+            .description("Estimated size of the cached resources")
+            .baseUnit("bytes")
+            .tag("service", service)
+            .register(meterRegistry);
+    }
+
+    // sort orders maintained by the indexes, besides the id one
+    private static <R extends HasMetadata> Map<String, Comparator<IdAwareResource<R>>> orders() {
+        return ResourceQuery.indexedOrders(IdAwareResource::getResource);
+    }
+
+    private CachedIndex<T> loadIndex(String namespace) {
+        List<IdAwareResource<T>> items = getItems(namespace).stream()
+            .map(IdAwareResource::new)
+            .collect(Collectors.toList());
+
+        long size = 0;
+        for (IdAwareResource<T> item : items) {
+            size += estimateSize(item.getResource());
+        }
+        if (size > cacheMaxBytes) {
+            // heavier entries would be evicted right away, and listed again on each read
+            logger.warn(
+                "Resources of {} in namespace {} exceed the cache size ({} bytes estimated), other namespaces are evicted",
+                getClass().getSimpleName(),
+                namespace,
+                size
+            );
+            size = cacheMaxBytes;
+        }
+        return new CachedIndex<>(SortedIndex.of(IdAwareResource::getId, orders(), items), (int) Math.min(size, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Estimated heap size of a resource, used to bound the cache: a multiple of the size of its JSON
+     * representation, so that spec and status (e.g. pod templates) are counted along with the metadata.
+     * @param resource
+     * @return size in bytes
+     */
+    protected long estimateSize(T resource) {
+        CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            Serialization.jsonMapper().writeValue(out, resource);
+        } catch (IOException e) {
+            logger.debug("Error estimating the size of {}: {}", resource.getMetadata().getName(), e.getMessage());
+        }
+        return HEAP_RATIO * out.getCount();
     }
 
     /**
@@ -81,6 +169,44 @@ public abstract class K8SResourceService<T extends HasMetadata> {
      */
     protected abstract List<T> getItems(String namespace);
 
+    /**
+     * Build the list/watch operations corresponding to the namespace, one for each configured selector.
+     * Used to create informers in informer mode. Returns null if the resource does not support informers,
+     * in which case the loading cache is used.
+     * @param namespace
+     * @return
+     */
+    protected List<? extends Informable<T>> getInformables(String namespace) {
+        return null;
+    }
+
+    /**
+     * Convert a resource read from an informer store before exposing it. Store objects are shared
+     * and must not be modified: implementations should return a copy when changes are needed.
+     * @param resource
+     * @return the resource to expose, or null if the resource should not be visible
+     */
+    protected T fromStore(T resource) {
+        return resource;
+    }
+
+    /**
+     * Read the initial content of an informer store, to build the store index. Implementations may return
+     * only the objects accepted by {@link #fromStore}, e.g. looking up the informer indexes.
+     * @param informer
+     * @return
+     */
+    protected List<T> storeContent(SharedIndexInformer<T> informer) {
+        return informer.getStore().list();
+    }
+
+    /**
+     * @return true if resources are read from informer stores
+     */
+    protected boolean isInformerEnabled() {
+        return informerEnabled;
+    }
+
     /**
      * Reference to auth service
      * @return
@@ -98,15 +224,144 @@ public abstract class K8SResourceService<T extends HasMetadata> {
     }
     
     /**
-     * Get all namespace resources
-     * @param namespace
+     * Run the list operations of the selectors concurrently and merge the results by UID,
+     * as the same resource may match more than one selector.
+     * The duration of each list operation is recorded in the {@code krm.k8s.list} timer, tagged by selector.
+     * @param queries list operations by selector
      * @return
      */
-    protected List<IdAwareResource<T>> readResources(String namespace) {
+    protected List<T> listAll(java.util.Map<String, ? extends Listable<? extends KubernetesResourceList<T>>> queries) {
+        String service = getClass().getSimpleName();
+        List<List<T>> results = callExecutor.map(queries.entrySet(), e -> {
+            Timer timer = Timer.builder("krm.k8s.list")
+                .description("List calls to the K8S API server")
+                .tag("service", service)
+                .tag("selector", e.getKey())
+                .register(meterRegistry);
+            long start = System.nanoTime();
+            List<T> items = e.getValue().list().getItems();
+            long duration = System.nanoTime() - start;
+            timer.record(duration, TimeUnit.NANOSECONDS);
+            logger.debug("{} listed {} resources for selector '{}' in {} ms", service, items.size(), e.getKey(), TimeUnit.NANOSECONDS.toMillis(duration));
+            return items;
+        });
+
+        java.util.Map<String, T> items = new java.util.LinkedHashMap<>();
+        results.forEach(list -> list.forEach(r -> {
+            String uid = r.getMetadata().getUid() != null ? r.getMetadata().getUid() : r.getMetadata().getName();
+            items.putIfAbsent(uid, r);
+        }));
+        return new java.util.ArrayList<>(items.values());
+    }
+
+    /**
+     * Start the informers of the namespace. Blocks until the initial list is completed.
+     * @param namespace
+     * @return null if informers are not supported
+     */
+    private List<SharedIndexInformer<T>> startInformers(String namespace) {
+        List<? extends Informable<T>> informables = getInformables(namespace);
+        if (informables == null) {
+            return null;
+        }
+
+        List<SharedIndexInformer<T>> list = new java.util.ArrayList<>();
+        try {
+            for (Informable<T> informable : informables) {
+                list.add(informable.inform());
+            }
+        } catch (RuntimeException e) {
+            // do not leave partially started informers around
+            list.forEach(SharedIndexInformer::stop);
+            throw e;
+        }
+        logger.debug("Started {} informers for namespace {}", list.size(), namespace);
+        return list;
+    }
+
+    /**
+     * Get informers of the namespace, starting them on first access. Waits for the informers started
+     * by a concurrent access.
+     * @param namespace
+     * @return null if informer mode is disabled or not supported
+     */
+    protected List<SharedIndexInformer<T>> readInformers(String namespace) {
+        CompletableFuture<List<SharedIndexInformer<T>>> future = informersOf(namespace);
+        return future != null ? join(future) : null;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the informers of the namespace, starting them on first access. The initial list is run by the first
+     * caller, outside of the map lock: concurrent callers get the pending future.
+     * @param namespace
+     * @return null if informer mode is disabled
+     */
+    private CompletableFuture<List<SharedIndexInformer<T>>> informersOf(String namespace) {
+        if (!informerEnabled) {
+            return null;
+        }
+        CompletableFuture<List<SharedIndexInformer<T>>> created = new CompletableFuture<>();
+        CompletableFuture<List<SharedIndexInformer<T>>> future = informers.putIfAbsent(namespace, created);
+        if (future != null) {
+            return future;
+        }
+
+        try {
+            created.complete(startInformers(namespace));
+        } catch (RuntimeException e) {
+            // retried on next access
+            informers.remove(namespace, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Get the sorted index of the namespace resources: the index of the informer stores in informer mode,
+     * the cached one otherwise. Errors reading the resources are propagated.
+     * @param namespace
+     * @return an empty index while the informers of the namespace are still listing the resources
+     */
+    protected SortedIndex<IdAwareResource<T>> readIndex(String namespace) {
+        CompletableFuture<List<SharedIndexInformer<T>>> future = informersOf(namespace);
+        if (future != null && !future.isDone()) {
+            // not synced yet, started by a concurrent access
+            return emptyIndex;
+        }
+        List<SharedIndexInformer<T>> list = future != null ? join(future) : null;
+        if (list != null) {
+            return storeIndexes.computeIfAbsent(
+                namespace,
+                ns -> StoreIndexHandler.bind(
+                    list,
+                    this::storeContent,
+                    r -> {
+                        T resource = fromStore(r);
+                        return resource != null ? new IdAwareResource<>(resource) : null;
+                    },
+                    new SortedIndex<>(IdAwareResource::getId, orders())
+                )
+            );
+        }
+
         try {
-            return new java.util.LinkedList<>(resourceCache.get(namespace).values());
-        } catch (ExecutionException e) {
-            return java.util.Collections.emptyList();
+            return resourceCache.get(namespace).index;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -114,24 +369,76 @@ public abstract class K8SResourceService<T extends HasMetadata> {
      * Get a single resource by name
      * @param name
      * @param namespace
-     * @return
+     * @return null if not found
      */
     protected IdAwareResource<T> readResource(String name, String namespace) {
-        try {
-            return resourceCache.get(namespace).get(name);
-        } catch (ExecutionException e) {
+        return readIndex(namespace).get(name);
+    }
+
+    /**
+     * Watch the changes of the namespace resources. In informer mode the listener is attached to the shared informers,
+     * otherwise dedicated informers are started. Existing resources are not notified, and resources hidden by
+     * {@link #fromStore} are skipped.
+     * @param namespace
+     * @param listener
+     * @return the action stopping the dedicated informers, or null if the informers are shared
+     */
+    public Runnable watch(String namespace, Consumer<ResourceEvent> listener) {
+        Predicate<T> visible = r -> fromStore(r) != null;
+        List<SharedIndexInformer<T>> list = readInformers(namespace);
+        if (list != null) {
+            list.forEach(i -> ResourceChangeHandler.attach(i, visible, listener));
             return null;
         }
+
+        List<SharedIndexInformer<T>> own = startInformers(namespace);
+        if (own == null) {
+            throw new UnsupportedOperationException("Resource watch not supported");
+        }
+        own.forEach(i -> ResourceChangeHandler.attach(i, visible, listener));
+        return () -> own.forEach(SharedIndexInformer::stop);
     }
 
     /**
      * Access return cache
      * @return
      */
-    protected LoadingCache<String, java.util.Map<String, IdAwareResource<T>>> getResourceCache() {
+    protected LoadingCache<String, CachedIndex<T>> getResourceCache() {
         return resourceCache;
     }
 
+    /**
+     * Stop all the running informers
+     */
+    @PreDestroy
+    public void stopInformers() {
+        informers.values().forEach(this::stop);
+        informers.clear();
+        storeIndexes.clear();
+    }
+
+    // informers still starting are stopped once started
+    private void stop(CompletableFuture<List<SharedIndexInformer<T>>> future) {
+        future.thenAccept(list -> {
+            if (list != null) {
+                list.forEach(SharedIndexInformer::stop);
+            }
+        });
+    }
+
+    /**
+     * Drop the cached resources and stop the informers of the namespace, e.g. when it is no longer managed
+     * @param namespace
+     */
+    public void release(String namespace) {
+        CompletableFuture<List<SharedIndexInformer<T>>> future = informers.remove(namespace);
+        if (future != null) {
+            stop(future);
+        }
+        storeIndexes.remove(namespace);
+        resourceCache.invalidate(namespace);
+    }
+
     /**
      * Find all namespace resources paginated and optionally filtered by list of IDs.
      * @param namespace
@@ -140,19 +447,32 @@ public abstract class K8SResourceService<T extends HasMetadata> {
      * @return
      */
     public Page< IdAwareResource<T>> findAll(String namespace, Collection<String> ids, Pageable pageable) {
-        List< IdAwareResource<T>> items = readResources(namespace); 
+        return findAll(namespace, ids, null, pageable);
+    }
+
+    /**
+     * Find all namespace resources paginated, sorted as requested and optionally filtered by list of IDs
+     * and by filter expressions (see {@link ResourceQuery}).
+     * @param namespace
+     * @param ids
+     * @param filters
+     * @param pageable
+     * @return
+     */
+    public Page< IdAwareResource<T>> findAll(String namespace, Collection<String> ids, Collection<String> filters, Pageable pageable) {
+        ResourceQuery query = ResourceQuery.of(pageable.getSort(), filters);
+        SortedIndex<IdAwareResource<T>> index = readIndex(namespace);
 
         if (ids != null && !ids.isEmpty()) {
-            items = items.stream().filter(i -> ids.contains(i.getId())).collect(Collectors.toList());
+            // direct lookups, sorted by ID
+            List<IdAwareResource<T>> items = new java.util.TreeSet<>(ids).stream()
+                .map(index::get)
+                .filter(java.util.Objects::nonNull)
+                .collect(Collectors.toList());
+            return query.apply(items, IdAwareResource::getResource, pageable);
         }
-
-        //sort by ID and provide pagination
-        items.sort(( IdAwareResource<T> h1,  IdAwareResource<T> h2) -> h1.getId().compareTo(h2.getId()));
-        int offset = (int) pageable.getOffset();
-        int pageSize = Math.min(pageable.getPageSize(), items.size());
-        int toIndex = Math.min(offset + pageSize, items.size());
-
-        return new PageImpl<>(items.subList(offset, toIndex), pageable, items.size());
+        // sorted by ID or by a maintained order: only the requested page is copied
+        return query.apply(index, IdAwareResource::getResource, pageable);
     }
 
     /**
@@ -170,4 +490,17 @@ public abstract class K8SResourceService<T extends HasMetadata> {
 
     }
 
+    /**
+     * Cached resources of a namespace, with their estimated size
+     */
+    protected static final class CachedIndex<T extends HasMetadata> {
+
+        private final SortedIndex<IdAwareResource<T>> index;
+        private final int size;
+
+        CachedIndex(SortedIndex<IdAwareResource<T>> index, int size) {
+            this.index = index;
+            this.size = size;
+        }
+    }
 }
@@ -4,18 +4,15 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 import java.util.Map.Entry;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 
@@ -23,12 +20,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.SecretList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.fabric8.kubernetes.client.dsl.Informable;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Indexer;
 import it.smartcommunitylab.dhub.rm.SystemKeys;
 import it.smartcommunitylab.dhub.rm.model.IdAwareResource;
 import it.smartcommunitylab.dhub.rm.model.dto.SecretDTO;
@@ -54,32 +58,26 @@ public class K8SSecretService extends K8SResourceService<Secret> {
     @Value("${kubernetes.secret.names}")
     private String nameFilters;
 
-    Map<String, String> annotations = new HashMap<>();
-    Set<String> owners = new HashSet<>();
-    Set<String> names = new HashSet<>();
+    private static final String INDEX_OWNER = "owner";
+    private static final String INDEX_ANNOTATION = "annotation";
 
-    public K8SSecretService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    private SecretFilter filter;
+
+    public K8SSecretService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
     }
 
     public static final Logger logger = LoggerFactory.getLogger(K8SSvcService.class);
 
     @PostConstruct
     public void initFilters() {
-            
-            if (StringUtils.hasText(annotationFilters)) {
-                 Arrays.asList(annotationFilters.split("\\|")).forEach(a -> {
-                    String[] arr = a.split("=");
-                    annotations.put(arr[0].trim(), arr[1].trim());
-                 });
-            }
-            if (StringUtils.hasText(ownerFilters)) {
-                owners.addAll(StringUtils.commaDelimitedListToSet(ownerFilters));
-            }
-            if (StringUtils.hasText(nameFilters)) {
-                names.addAll(StringUtils.commaDelimitedListToSet(nameFilters));
-            }
-
+        filter = SecretFilter.compile(labelFilters, ownerFilters, annotationFilters, nameFilters);
     }
 
     @Override
@@ -87,6 +85,41 @@ public class K8SSecretService extends K8SResourceService<Secret> {
         return fetch(namespace).stream().map(s -> secureSecret(s)).toList();
     }
 
+    @Override
+    protected List<? extends Informable<Secret>> getInformables(String namespace) {
+        if (filter.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (filter.requiresNamespace()) {
+            // watch the whole namespace, filters are applied when the store index is updated
+            Map<String, Function<Secret, List<String>>> indexers = new HashMap<>();
+            indexers.put(INDEX_OWNER, SecretFilter::ownerIndex);
+            indexers.put(INDEX_ANNOTATION, filter::annotationIndex);
+            return Collections.singletonList(getKubernetesClient().secrets().inNamespace(namespace).withIndexers(indexers));
+        }
+        return filter.getLabelSelectors().stream()
+            .map(selector -> getKubernetesClient().secrets().inNamespace(namespace).withLabelSelector(selector))
+            .toList();
+    }
+
+    @Override
+    protected List<Secret> storeContent(SharedIndexInformer<Secret> informer) {
+        if (!filter.isIndexed()) {
+            return super.storeContent(informer);
+        }
+        // owner and annotation filters only: look up the indexes instead of scanning the store
+        Indexer<Secret> indexer = informer.getIndexer();
+        Map<String, Secret> items = new LinkedHashMap<>();
+        filter.getOwners().forEach(o -> indexer.byIndex(INDEX_OWNER, o).forEach(s -> items.putIfAbsent(s.getMetadata().getName(), s)));
+        filter.getAnnotationKeys().forEach(a -> indexer.byIndex(INDEX_ANNOTATION, a).forEach(s -> items.putIfAbsent(s.getMetadata().getName(), s)));
+        return new ArrayList<>(items.values());
+    }
+
+    @Override
+    protected Secret fromStore(Secret resource) {
+        return filter.test(resource) ? secureSecret(resource) : null;
+    }
+
     /**
      * Decode the specified secret.
      * @param namespace
@@ -95,11 +128,9 @@ public class K8SSecretService extends K8SResourceService<Secret> {
      * @return
      */
     public String decode(String namespace, @Pattern(regexp = SystemKeys.REGEX_CR_ID) String secretId, String key) {
-        List<Secret> secrets = fetch(namespace);
-        
-        Optional<Secret> secret = secrets.stream().filter(s -> s.getMetadata().getName().equals(secretId)).findAny();
-        if (secret.isEmpty()) throw new IllegalArgumentException("No matching secret found");
-        String encoded = secret.get().getData().get(key);
+        Secret secret = fetch(namespace, secretId);
+        if (secret == null) throw new IllegalArgumentException("No matching secret found");
+        String encoded = secret.getData() != null ? secret.getData().get(key) : null;
         if (encoded == null) throw new IllegalArgumentException("No matching secret key found");
         return new String(Base64.getDecoder().decode(encoded));
     }
@@ -112,9 +143,7 @@ public class K8SSecretService extends K8SResourceService<Secret> {
      */
     public IdAwareResource<Secret> add(@Nonnull String namespace, @Valid SecretDTO dto) {
         // check if secret with the same name already exists
-        List<Secret> secrets = fetch(namespace);
-        Optional<Secret> secretOpt = secrets.stream().filter(s -> s.getMetadata().getName().equals(dto.getName())).findAny();
-        if (secretOpt.isPresent()) throw new IllegalArgumentException("Secret with the same name already exists");
+        if (fetch(namespace, dto.getName()) != null) throw new IllegalArgumentException("Secret with the same name already exists");
 
 
         if (dto.getData() == null) dto.setData(Collections.emptyMap());
@@ -127,9 +156,9 @@ public class K8SSecretService extends K8SResourceService<Secret> {
         .withData(dto.getData())
         .build();
 
-        getKubernetesClient().secrets().inNamespace(namespace).resource(secret).create();
+        Secret created = getKubernetesClient().secrets().inNamespace(namespace).resource(secret).create();
         getResourceCache().invalidate(namespace);
-        return findById(namespace, dto.getName());
+        return new IdAwareResource<>(secureSecret(created));
     }
 
     /**
@@ -139,49 +168,70 @@ public class K8SSecretService extends K8SResourceService<Secret> {
      */
     public void delete(@Nonnull String namespace, @Pattern(regexp = SystemKeys.REGEX_CR_ID) String secretId) {
         // can delete only if the secret exists and matches the filters
-        List<Secret> secrets = fetch(namespace);        
-        Optional<Secret> secretOpt = secrets.stream().filter(s -> s.getMetadata().getName().equals(secretId)).findAny();
-        if (secretOpt.isEmpty()) throw new IllegalArgumentException("No matching secret found");
+        if (fetch(namespace, secretId) == null) throw new IllegalArgumentException("No matching secret found");
 
         getResourceCache().invalidate(namespace);
         getKubernetesClient().secrets().inNamespace(namespace).withName(secretId).delete();
     }
 
+    /**
+     * List the namespace secrets matching the filters
+     * @param namespace
+     * @return
+     */
     private List<Secret> fetch(String namespace) {
-        Map<String, Secret> secrets = new HashMap<>();
-
-        if (StringUtils.hasText(labelFilters))
-                Arrays.asList(labelFilters.split("\\|")).stream()
-                .map(s -> getKubernetesClient().secrets().inNamespace(namespace) .withLabelSelector(s).list().getItems())
-                .flatMap(Collection::stream).forEach(s -> secrets.put(s.getMetadata().getName(), s));
-        if (!annotations.isEmpty() || !owners.isEmpty() || !names.isEmpty()) {
-            List<Secret> all = getKubernetesClient().secrets().inNamespace(namespace).list().getItems();
-            all.forEach(s -> {
-                // check owners: apiVersion in the list of owners
-                if (!owners.isEmpty() && s.getMetadata().getOwnerReferences() != null && s.getMetadata().getOwnerReferences().stream().filter(o -> owners.contains(o.getApiVersion())).findAny().isPresent()) {
-                    secrets.put(s.getMetadata().getName(), s);
-                } 
-                // check annotations: should match at least one
-                if (!annotations.isEmpty() && s.getMetadata().getAnnotations() != null && s.getMetadata().getAnnotations().keySet().stream().filter(a -> annotations.containsKey(a) && annotations.get(a).equals(s.getMetadata().getAnnotations().get(a))).findAny().isPresent()) {
-                    secrets.put(s.getMetadata().getName(), s);
-                }
-                // check names: regexp
-                if (names.stream().anyMatch(n -> s.getMetadata().getName().matches(n))) {
-                    secrets.put(s.getMetadata().getName(), s);
-                }
-            });
+        if (filter.isEmpty()) {
+            return Collections.emptyList();
         }
-                
-        return new LinkedList<>(secrets.values());
+        if (filter.requiresNamespace()) {
+            // single list of the namespace, label selectors are evaluated locally
+            return getKubernetesClient().secrets().inNamespace(namespace).list().getItems().stream()
+                .filter(filter)
+                .toList();
+        }
+
+        Map<String, FilterWatchListDeletable<Secret, SecretList, Resource<Secret>>> queries = new LinkedHashMap<>();
+        filter.getLabelSelectors().forEach(s -> queries.put(s, getKubernetesClient().secrets().inNamespace(namespace).withLabelSelector(s)));
+        return listAll(queries);
     }
 
+    /**
+     * Get a single secret matching the filters, with its data
+     * @param namespace
+     * @param name
+     * @return null if the secret does not exist or does not match the filters
+     */
+    private Secret fetch(String namespace, String name) {
+        if (filter.isEmpty()) {
+            return null;
+        }
+        Secret secret = null;
+        List<SharedIndexInformer<Secret>> list = readInformers(namespace);
+        if (list != null) {
+            String key = namespace + "/" + name;
+            for (SharedIndexInformer<Secret> i : list) {
+                secret = i.getStore().getByKey(key);
+                if (secret != null) break;
+            }
+        } else {
+            secret = getKubernetesClient().secrets().inNamespace(namespace).withName(name).get();
+        }
+        return secret != null && filter.test(secret) ? secret : null;
+    }
+
+    /**
+     * Copy of the secret with masked data. The original object is not modified, as it may be shared.
+     * @param s
+     * @return
+     */
     private Secret secureSecret(Secret s) {
         Map<String, String> newData = new HashMap<>();
-        for (Entry<String,String> entry : s.getData().entrySet()) {
-            newData.put(entry.getKey(), "*************");
+        if (s.getData() != null) {
+            for (Entry<String,String> entry : s.getData().entrySet()) {
+                newData.put(entry.getKey(), "*************");
+            }
         }
-        s.setData(newData);
-        return s;
+        return new SecretBuilder(s).withData(newData).build();
     }
 
 }
@@ -4,15 +4,22 @@
 
 package it.smartcommunitylab.dhub.rm.service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import io.fabric8.kubernetes.api.model.ServiceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.ServiceResource;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Service for K8S Svc resource
@@ -20,18 +27,37 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 @Service
 public class K8SSvcService extends K8SResourceService<io.fabric8.kubernetes.api.model.Service> {
     
-    public K8SSvcService(KubernetesClient client, K8SAuthorizationService authService) {
-        super(client, authService, 60);
+    public K8SSvcService(
+        KubernetesClient client,
+        K8SAuthorizationService authService,
+        K8SCallExecutor callExecutor,
+        MeterRegistry meterRegistry,
+        @Value("${kubernetes.cache.max-size:64MB}") DataSize cacheMaxSize
+    ) {
+        super(client, authService, callExecutor, meterRegistry, 60, cacheMaxSize);
     }
 
     public static final Logger logger = LoggerFactory.getLogger(K8SSvcService.class);
 
+    /**
+     * Build the list operations of the namespace, one for each configured selector.
+     * @param namespace
+     * @return
+     */
+    private Map<String, FilterWatchListDeletable<io.fabric8.kubernetes.api.model.Service, ServiceList, ServiceResource<io.fabric8.kubernetes.api.model.Service>>> queries(String namespace) {
+        Map<String, FilterWatchListDeletable<io.fabric8.kubernetes.api.model.Service, ServiceList, ServiceResource<io.fabric8.kubernetes.api.model.Service>>> queries = new LinkedHashMap<>();
+        getAuthService().getServiceSelectors().forEach(s -> queries.put(s, getKubernetesClient().services().inNamespace(namespace).withLabelSelector(s)));
+        return queries;
+    }
+
     @Override
     protected List<io.fabric8.kubernetes.api.model.Service> getItems(String namespace) {
-            return java.util.Arrays.asList(getAuthService().getServiceSelector().split("\\|")).stream()
-                        .map(s -> getKubernetesClient().services().inNamespace(namespace).withLabelSelector(s).list().getItems())
-                        .flatMap(Collection::stream).collect(Collectors.toList());
+        return listAll(queries(namespace));
+    }
 
+    @Override
+    protected List<FilterWatchListDeletable<io.fabric8.kubernetes.api.model.Service, ServiceList, ServiceResource<io.fabric8.kubernetes.api.model.Service>>> getInformables(String namespace) {
+        return new ArrayList<>(queries(namespace).values());
     }
 
     
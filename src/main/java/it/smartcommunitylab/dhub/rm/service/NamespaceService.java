@@ -0,0 +1,166 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import it.smartcommunitylab.dhub.rm.SystemKeys;
+
+/**
+ * Namespaces managed by the instance: the default one ({@code kubernetes.namespace}), the configured ones
+ * ({@code kubernetes.namespaces}) and those matching {@code kubernetes.namespace-selector}.
+ * Each request operates on a single namespace, selected by path prefix or header (see {@link #current()}).
+ * Only managed namespaces are accepted here, the roles of the user in the namespace are checked by
+ * {@link AccessControlService}.
+ * Resource caches and informers are kept per namespace by the resource services, and those of the namespaces
+ * no longer matching the selector are released.
+ */
+@Service
+public class NamespaceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespaceService.class);
+
+    /**
+     * Request attribute holding the namespace requested by path prefix or header
+     */
+    public static final String ATTRIBUTE = NamespaceService.class.getName() + ".namespace";
+
+    private final KubernetesClient client;
+    private final List<K8SResourceService<?>> resourceServices;
+    private final CustomResourceService crService;
+
+    private final String defaultNamespace;
+    private final Set<String> configured;
+    private final String selector;
+
+    // namespaces matching the selector, as a single entity. Stale set is served while reloading
+    private final LoadingCache<String, Set<String>> selected = CacheBuilder.newBuilder()
+        .refreshAfterWrite(60, TimeUnit.SECONDS)
+        .build(CacheLoader.from(key -> listSelected()));
+    private volatile Set<String> lastSelected = Collections.emptySet();
+
+    public NamespaceService(
+        KubernetesClient client,
+        List<K8SResourceService<?>> resourceServices,
+        CustomResourceService crService,
+        @Value("${kubernetes.namespace}") String defaultNamespace,
+        @Value("${kubernetes.namespaces:}") String namespaces,
+        @Value("${kubernetes.namespace-selector:}") String selector
+    ) {
+        this.client = client;
+        this.resourceServices = resourceServices;
+        this.crService = crService;
+        this.defaultNamespace = defaultNamespace;
+        Set<String> set = new HashSet<>(StringUtils.commaDelimitedListToSet(namespaces));
+        set.removeIf(s -> !StringUtils.hasText(s));
+        set.add(defaultNamespace);
+        this.configured = Collections.unmodifiableSet(set);
+        this.selector = selector;
+    }
+
+    /**
+     * List the namespaces matching the selector, and release the resources of those no longer matching
+     * @return
+     */
+    private synchronized Set<String> listSelected() {
+        Set<String> result = client
+            .namespaces()
+            .withLabelSelector(selector)
+            .list()
+            .getItems()
+            .stream()
+            .map(n -> n.getMetadata().getName())
+            .collect(Collectors.toUnmodifiableSet());
+
+        lastSelected
+            .stream()
+            .filter(ns -> !result.contains(ns) && !configured.contains(ns))
+            .forEach(ns -> {
+                logger.info("Namespace {} no longer matches the selector, releasing its resources", ns);
+                resourceServices.forEach(s -> s.release(ns));
+                crService.release(ns);
+            });
+        lastSelected = result;
+        return result;
+    }
+
+    public String getDefaultNamespace() {
+        return defaultNamespace;
+    }
+
+    /**
+     * @return the managed namespaces, sorted by name
+     */
+    public Set<String> findAll() {
+        Set<String> all = new TreeSet<>(configured);
+        all.addAll(readSelected());
+        return all;
+    }
+
+    private Set<String> readSelected() {
+        if (!StringUtils.hasText(selector)) {
+            return Collections.emptySet();
+        }
+        try {
+            return selected.getUnchecked("");
+        } catch (UncheckedExecutionException e) {
+            logger.error("Error reading namespaces: {}", e.getMessage());
+        }
+        return lastSelected;
+    }
+
+    public boolean isManaged(String namespace) {
+        return configured.contains(namespace) || readSelected().contains(namespace);
+    }
+
+    /**
+     * Check the requested namespace
+     * @param namespace requested namespace, or null for the default one
+     * @return
+     * @throws AccessDeniedException if the namespace is not managed
+     */
+    public String resolve(String namespace) {
+        if (!StringUtils.hasText(namespace)) {
+            return defaultNamespace;
+        }
+        if (!isManaged(namespace)) {
+            throw new AccessDeniedException(SystemKeys.ERROR_NAMESPACE_NOT_ALLOWED);
+        }
+        return namespace;
+    }
+
+    /**
+     * Namespace of the current request, as set in the {@link #ATTRIBUTE} request attribute.
+     * The default namespace is used when not specified, or outside of requests.
+     * @return
+     * @throws AccessDeniedException if the namespace is not managed
+     */
+    public String current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object namespace = attributes != null ? attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) : null;
+        return resolve(namespace != null ? namespace.toString() : null);
+    }
+}
@@ -0,0 +1,87 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent.EVENT_TYPE;
+
+/**
+ * Informer handler converting the changes of visible resources into resource events.
+ * Informers replay the content of the store to a new handler: these additions are not notified.
+ */
+final class ResourceChangeHandler<T extends HasMetadata> implements ResourceEventHandler<T> {
+
+    // keys of the resources in the store when the handler was attached, not yet replayed
+    private final Set<String> existing = ConcurrentHashMap.newKeySet();
+    private final Predicate<T> visible;
+    private final Consumer<ResourceEvent> listener;
+
+    private ResourceChangeHandler(Predicate<T> visible, Consumer<ResourceEvent> listener) {
+        this.visible = visible;
+        this.listener = listener;
+    }
+
+    /**
+     * Attach a new handler to the running informer
+     * @param informer
+     * @param visible filter of the resources to notify
+     * @param listener
+     */
+    static <T extends HasMetadata> void attach(
+        SharedIndexInformer<T> informer,
+        Predicate<T> visible,
+        Consumer<ResourceEvent> listener
+    ) {
+        ResourceChangeHandler<T> handler = new ResourceChangeHandler<>(visible, listener);
+        handler.existing.addAll(informer.getStore().listKeys());
+        informer.addEventHandler(handler);
+    }
+
+    @Override
+    public void onAdd(T obj) {
+        if (existing.remove(Cache.metaNamespaceKeyFunc(obj))) {
+            return;
+        }
+        notify(EVENT_TYPE.ADDED, obj);
+    }
+
+    @Override
+    public void onUpdate(T oldObj, T newObj) {
+        existing.remove(Cache.metaNamespaceKeyFunc(newObj));
+        if (Objects.equals(oldObj.getMetadata().getResourceVersion(), newObj.getMetadata().getResourceVersion())) {
+            // resync, nothing changed
+            return;
+        }
+        if (visible.test(newObj) || visible.test(oldObj)) {
+            listener.accept(event(EVENT_TYPE.MODIFIED, newObj));
+        }
+    }
+
+    @Override
+    public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+        existing.remove(Cache.metaNamespaceKeyFunc(obj));
+        notify(EVENT_TYPE.DELETED, obj);
+    }
+
+    private void notify(EVENT_TYPE type, T obj) {
+        if (visible.test(obj)) {
+            listener.accept(event(type, obj));
+        }
+    }
+
+    private static ResourceEvent event(EVENT_TYPE type, HasMetadata obj) {
+        return new ResourceEvent(type, obj.getMetadata().getName(), obj.getMetadata().getResourceVersion());
+    }
+}
@@ -0,0 +1,229 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Change feeds of the managed resources. Each resource type and namespace has one shared watch,
+ * whose events are fanned out to all the subscribers.
+ * Events are queued for each subscriber and delivered on a separate thread, so that slow subscribers
+ * do not hold the watch (or the shared informer, with its store indexes); subscribers falling more than
+ * {@value #QUEUE_SIZE} events behind are dropped.
+ */
+@Service
+public class ResourceEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceEventService.class);
+
+    static final int QUEUE_SIZE = 1000;
+
+    private final Map<String, K8SResourceService<?>> services;
+    private final CustomResourceService crService;
+
+    // resource/namespace -> feed
+    private final ConcurrentHashMap<String, Feed> feeds = new ConcurrentHashMap<>();
+
+    // delivery of the queued events, at most one thread for each subscriber
+    private final ExecutorService executor;
+
+    public ResourceEventService(
+        K8SJobService jobService,
+        K8SDeploymentService deploymentService,
+        K8SSecretService secretService,
+        K8SPVCService pvcService,
+        K8SSvcService svcService,
+        K8SQuotaService quotaService,
+        CustomResourceService crService
+    ) {
+        this.services = Map.of(
+            "k8s_job", jobService,
+            "k8s_deployment", deploymentService,
+            "k8s_secret", secretService,
+            "k8s_pvc", pvcService,
+            "k8s_service", svcService,
+            "k8s_quota", quotaService
+        );
+        this.crService = crService;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "krm-events-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Subscribe to the changes of a resource type, either a K8S resource (e.g. k8s_job) or a CRD id.
+     * The first subscriber starts the shared watch.
+     * @param resource
+     * @param namespace
+     * @param listener
+     * @param onClose called when the subscription is dropped: subscriber too slow, or watch not started
+     * @return the action removing the subscription
+     */
+    public Runnable subscribe(String resource, String namespace, Consumer<ResourceEvent> listener, Runnable onClose) {
+        String key = resource + "/" + namespace;
+        Subscriber subscriber = new Subscriber(key, listener, onClose);
+
+        Feed created = new Feed();
+        Feed feed = feeds.compute(
+            key,
+            (k, f) -> {
+                Feed result = f != null ? f : created;
+                result.subscribers.add(subscriber);
+                return result;
+            }
+        );
+
+        if (feed == created) {
+            // start outside of the map lock, the initial list may take a while
+            logger.debug("Start change feed for {} in namespace {}", resource, namespace);
+            try {
+                feed.stop = start(resource, namespace, feed::publish);
+            } catch (RuntimeException e) {
+                feeds.remove(key, feed);
+                feed.subscribers.forEach(Subscriber::close);
+                throw e;
+            }
+            feed.started = true;
+            // subscribers may have left while starting
+            release(key, feed);
+        }
+
+        return () -> unsubscribe(subscriber);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        Feed feed = feeds.get(subscriber.key);
+        if (feed != null) {
+            feed.subscribers.remove(subscriber);
+            release(subscriber.key, feed);
+        }
+    }
+
+    /**
+     * Stop the feed if started and without subscribers
+     * @param key
+     * @param feed
+     */
+    private void release(String key, Feed feed) {
+        // feeds attached to shared informers are kept, as handlers can not be removed
+        boolean removed = feeds.computeIfPresent(
+            key,
+            (k, f) -> f == feed && f.started && f.stop != null && f.subscribers.isEmpty() ? null : f
+        ) == null;
+        if (removed && feed.stopped.compareAndSet(false, true)) {
+            logger.debug("Stop change feed for {}", key);
+            feed.stop.run();
+        }
+    }
+
+    private Runnable start(String resource, String namespace, Consumer<ResourceEvent> listener) {
+        K8SResourceService<?> service = services.get(resource);
+        if (service != null) {
+            return service.watch(namespace, listener);
+        }
+        return crService.watch(resource, namespace, listener);
+    }
+
+    @PreDestroy
+    public void stopFeeds() {
+        feeds.values().forEach(f -> {
+            if (f.stop != null && f.stopped.compareAndSet(false, true)) {
+                f.stop.run();
+            }
+        });
+        feeds.clear();
+        executor.shutdownNow();
+    }
+
+    private static class Feed {
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private volatile Runnable stop;
+        private volatile boolean started;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private void publish(ResourceEvent event) {
+            // never blocks the watch thread
+            subscribers.forEach(s -> s.offer(event));
+        }
+    }
+
+    /**
+     * Subscriber with its queue of pending events, drained by one task at a time
+     */
+    private class Subscriber implements Runnable {
+        private final String key;
+        private final Consumer<ResourceEvent> listener;
+        private final Runnable onClose;
+        private final BlockingQueue<ResourceEvent> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(String key, Consumer<ResourceEvent> listener, Runnable onClose) {
+            this.key = key;
+            this.listener = listener;
+            this.onClose = onClose;
+        }
+
+        void offer(ResourceEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.debug("Subscriber of {} too slow, dropped", key);
+                unsubscribe(this);
+                close();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                executor.execute(onClose);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                ResourceEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    try {
+                        listener.accept(event);
+                    } catch (RuntimeException e) {
+                        // a failing subscriber must not affect the others
+                        logger.debug("Error notifying event: {}", e.getMessage());
+                    }
+                }
+                scheduled.set(false);
+                // events queued after the last poll, and not scheduled as this task was still running
+            } while (!closed.get() && !queue.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,404 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+/**
+ * Sort and filter criteria of the list operations, compiled once per request and evaluated against
+ * the resources in memory.
+ *
+ * <p>
+ * Sort properties and filters refer to fields by dot-separated path, as in the JSON representation
+ * (e.g. {@code metadata.creationTimestamp}, {@code status.phase}, {@code spec.size}). The {@code id} path
+ * is the resource name, and the rest of a path after {@code metadata.labels} or {@code metadata.annotations}
+ * is the key (e.g. {@code metadata.labels.app.kubernetes.io/name}).
+ * </p>
+ *
+ * <p>
+ * Filters are {@code path=value}, {@code path!=value}, {@code path^=prefix} and {@code path~=text},
+ * and all must match.
+ * </p>
+ *
+ * <p>
+ * Paths are resolved only through maps and the getters of the Kubernetes model classes, other objects
+ * reached by a path (e.g. {@code metadata.class}) resolve to null.
+ * </p>
+ */
+public final class ResourceQuery {
+
+    private static final Pattern FILTER = Pattern.compile("^([^=!^~]+)(=|!=|\\^=|~=)(.*)$");
+    private static final String ID = "id";
+    private static final String NAME = "metadata.name";
+    private static final String CREATED = "metadata.creationTimestamp";
+    private static final String ADDITIONAL_PROPERTIES = "additionalProperties";
+    private static final String MODEL_PACKAGE = "io.fabric8.kubernetes.api.model";
+
+    // class -> field name -> getter
+    private static final Map<Class<?>, Map<String, Optional<Method>>> GETTERS = new ConcurrentHashMap<>();
+
+    /**
+     * Sort orders, other than the id one, maintained by the resource indexes (see {@link #indexedOrders})
+     */
+    public static final List<Sort.Order> INDEXED_ORDERS = List.of(Sort.Order.asc(CREATED), Sort.Order.desc(CREATED));
+
+    private static final ResourceQuery DEFAULT = new ResourceQuery(Collections.emptyList(), null, null, null, false);
+
+    private final List<Predicate<HasMetadata>> filters;
+    // sort keys, null when sorted by id
+    private final List<Function<HasMetadata, Object>> keys;
+    private final Comparator<Object[]> comparator;
+    // name of the order when sorted by a single property, as registered in the indexes
+    private final String order;
+    private final boolean reversed;
+
+    private ResourceQuery(
+        List<Predicate<HasMetadata>> filters,
+        List<Function<HasMetadata, Object>> keys,
+        Comparator<Object[]> comparator,
+        String order,
+        boolean reversed
+    ) {
+        this.filters = filters;
+        this.keys = keys;
+        this.comparator = comparator;
+        this.order = order;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Compile sort and filters
+     * @param sort
+     * @param filters filter expressions, may be null
+     * @return
+     * @throws IllegalArgumentException if a filter is not valid
+     */
+    public static ResourceQuery of(Sort sort, Collection<String> filters) {
+        List<Predicate<HasMetadata>> predicates = new ArrayList<>();
+        if (filters != null) {
+            filters.stream().filter(StringUtils::hasText).forEach(f -> predicates.add(compileFilter(f.trim())));
+        }
+
+        List<Sort.Order> orders = sort != null ? sort.toList() : Collections.emptyList();
+        if (orders.isEmpty() || (orders.size() == 1 && isId(orders.get(0).getProperty()))) {
+            // natural order of the indexes
+            boolean reversed = !orders.isEmpty() && orders.get(0).isDescending();
+            return predicates.isEmpty() && !reversed ? DEFAULT : new ResourceQuery(predicates, null, null, null, reversed);
+        }
+
+        List<Function<HasMetadata, Object>> keys = new ArrayList<>();
+        Comparator<Object[]> comparator = null;
+        for (Sort.Order order : orders) {
+            int i = keys.size();
+            keys.add(compilePath(order.getProperty()));
+            // missing values last
+            Comparator<Object[]> c = Comparator.comparing(k -> k[i], valueOrder(order));
+            comparator = comparator == null ? c : comparator.thenComparing(c);
+        }
+        return new ResourceQuery(predicates, keys, comparator, orders.size() == 1 ? orderName(orders.get(0)) : null, false);
+    }
+
+    /**
+     * Build the comparators of the {@link #INDEXED_ORDERS}, to be maintained by an index. Ties are left
+     * to the index, which sorts them by id as the queries do.
+     * @param <V>
+     * @param resource accessor of the resource of the indexed values
+     * @return comparators by order name
+     */
+    public static <V> Map<String, Comparator<V>> indexedOrders(Function<V, ? extends HasMetadata> resource) {
+        Map<String, Comparator<V>> orders = new LinkedHashMap<>();
+        for (Sort.Order order : INDEXED_ORDERS) {
+            Function<HasMetadata, Object> key = compilePath(order.getProperty());
+            orders.put(orderName(order), Comparator.comparing(v -> key.apply(resource.apply(v)), valueOrder(order)));
+        }
+        return orders;
+    }
+
+    private static String orderName(Sort.Order order) {
+        return order.getProperty() + "," + order.getDirection();
+    }
+
+    private static Comparator<Object> valueOrder(Sort.Order order) {
+        Comparator<Object> values = order.isAscending() ? ResourceQuery::compareValues : (a, b) -> compareValues(b, a);
+        return Comparator.nullsLast(values);
+    }
+
+    /**
+     * @return true if results are ordered by id (ascending or descending), as in the indexes
+     */
+    public boolean isIdOrder() {
+        return comparator == null;
+    }
+
+    public boolean hasFilters() {
+        return !filters.isEmpty();
+    }
+
+    /**
+     * @return true if the query is the default one: no filters, ascending id order
+     */
+    public boolean isDefault() {
+        return comparator == null && !reversed && filters.isEmpty();
+    }
+
+    public boolean test(HasMetadata resource) {
+        for (Predicate<HasMetadata> f : filters) {
+            if (!f.test(resource)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filter, sort and page the values of an index. When the order is by id or maintained by the index,
+     * the values are read in order and only those of the page are copied.
+     * @param <V>
+     * @param index
+     * @param resource accessor of the resource of the value
+     * @param pageable
+     * @return
+     */
+    public <V> Page<V> apply(SortedIndex<V> index, Function<V, ? extends HasMetadata> resource, Pageable pageable) {
+        if (comparator != null && order != null) {
+            List<V> ordered = index.values(order);
+            if (ordered != null) {
+                return page(ordered, false, resource, pageable);
+            }
+        }
+        return apply(index.values(), resource, pageable);
+    }
+
+    /**
+     * Filter, sort and page a list of values sorted by id. When the order is by id,
+     * only the values of the page are copied.
+     * @param <V>
+     * @param values values sorted by id
+     * @param resource accessor of the resource of the value
+     * @param pageable
+     * @return
+     */
+    public <V> Page<V> apply(List<V> values, Function<V, ? extends HasMetadata> resource, Pageable pageable) {
+        if (comparator == null) {
+            return page(values, reversed, resource, pageable);
+        }
+
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+
+        // evaluate the sort keys once per match, the last slot holds the value
+        List<Object[]> matches = new ArrayList<>();
+        values.forEach(v -> {
+            HasMetadata r = resource.apply(v);
+            if (test(r)) {
+                Object[] k = new Object[keys.size() + 1];
+                for (int i = 0; i < keys.size(); i++) {
+                    k[i] = keys.get(i).apply(r);
+                }
+                k[keys.size()] = v;
+                matches.add(k);
+            }
+        });
+        // stable sort: ties stay ordered by id
+        matches.sort(comparator);
+
+        List<V> page = new ArrayList<>();
+        SortedIndex.page(matches, offset, size).forEach(k -> page.add(value(k)));
+        return new PageImpl<>(page, pageable, matches.size());
+    }
+
+    // filter and page values already in the requested order
+    private <V> Page<V> page(List<V> values, boolean reversed, Function<V, ? extends HasMetadata> resource, Pageable pageable) {
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        if (filters.isEmpty()) {
+            List<V> page = reversed ? reversePage(values, offset, size) : SortedIndex.page(values, offset, size);
+            return new PageImpl<>(page, pageable, values.size());
+        }
+
+        // single pass, keeping only the page
+        List<V> page = new ArrayList<>(size);
+        long total = 0;
+        for (int i = 0; i < values.size(); i++) {
+            V v = values.get(reversed ? values.size() - 1 - i : i);
+            if (test(resource.apply(v))) {
+                if (total >= offset && page.size() < size) {
+                    page.add(v);
+                }
+                total++;
+            }
+        }
+        return new PageImpl<>(page, pageable, total);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(Object[] keys) {
+        return (V) keys[keys.length - 1];
+    }
+
+    private static <V> List<V> reversePage(List<V> values, long offset, int size) {
+        if (offset >= values.size()) {
+            return Collections.emptyList();
+        }
+        int to = values.size() - (int) offset;
+        List<V> page = new ArrayList<>(values.subList(Math.max(0, to - size), to));
+        Collections.reverse(page);
+        return page;
+    }
+
+    private static boolean isId(String path) {
+        return ID.equals(path) || NAME.equals(path);
+    }
+
+    private static Predicate<HasMetadata> compileFilter(String expression) {
+        Matcher m = FILTER.matcher(expression);
+        if (!m.matches() || !StringUtils.hasText(m.group(1))) {
+            throw new IllegalArgumentException("Invalid filter: " + expression);
+        }
+
+        Function<HasMetadata, Object> accessor = compilePath(m.group(1).trim());
+        String value = m.group(3).trim();
+        switch (m.group(2)) {
+            case "=":
+                return r -> value.equals(asString(accessor.apply(r)));
+            case "!=":
+                return r -> !value.equals(asString(accessor.apply(r)));
+            case "^=":
+                return r -> {
+                    String s = asString(accessor.apply(r));
+                    return s != null && s.startsWith(value);
+                };
+            default:
+                return r -> {
+                    String s = asString(accessor.apply(r));
+                    return s != null && s.contains(value);
+                };
+        }
+    }
+
+    /**
+     * Compile a path into a chain of map lookups and getters
+     * @param path
+     * @return
+     */
+    private static Function<HasMetadata, Object> compilePath(String path) {
+        if (isId(path)) {
+            return r -> r.getMetadata().getName();
+        }
+
+        List<String> segments = new ArrayList<>(Arrays.asList(path.split("\\.")));
+        if (segments.stream().anyMatch(s -> !StringUtils.hasText(s))) {
+            throw new IllegalArgumentException("Invalid path: " + path);
+        }
+        for (int i = 0; i < segments.size() - 1; i++) {
+            String s = segments.get(i);
+            if ((s.equals("labels") || s.equals("annotations")) && i + 2 < segments.size()) {
+                // keys may contain dots
+                String key = String.join(".", segments.subList(i + 1, segments.size()));
+                segments = new ArrayList<>(segments.subList(0, i + 1));
+                segments.add(key);
+                break;
+            }
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            String previous = i > 0 ? segments.get(i - 1) : null;
+            if (segments.get(i).equals("class") && !"labels".equals(previous) && !"annotations".equals(previous)) {
+                throw new IllegalArgumentException("Invalid path: " + path);
+            }
+        }
+
+        String[] steps = segments.toArray(new String[0]);
+        return r -> {
+            Object current = r;
+            for (String step : steps) {
+                current = get(current, step);
+                if (current == null) {
+                    return null;
+                }
+            }
+            return current;
+        };
+    }
+
+    private static Object get(Object target, String field) {
+        if (target instanceof Map<?, ?> map) {
+            return map.get(field);
+        }
+        if (!isModel(target.getClass())) {
+            return null;
+        }
+        Map<String, Optional<Method>> getters = GETTERS.computeIfAbsent(target.getClass(), c -> new ConcurrentHashMap<>());
+        try {
+            Optional<Method> getter = getters.computeIfAbsent(field, f -> findGetter(target.getClass(), f));
+            if (getter.isPresent()) {
+                return getter.get().invoke(target);
+            }
+            // fields not in the model, e.g. CR spec and status
+            Optional<Method> additional = getters.computeIfAbsent(ADDITIONAL_PROPERTIES, f -> findGetter(target.getClass(), f));
+            return additional.isPresent() && additional.get().invoke(target) instanceof Map<?, ?> map ? map.get(field) : null;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static Optional<Method> findGetter(Class<?> type, String field) {
+        String name = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        for (String prefix : new String[] { "get", "is" }) {
+            try {
+                Method m = type.getMethod(prefix + name);
+                // only model getters, not those inherited from Object
+                if (m.getParameterCount() == 0 && m.getReturnType() != void.class && isModel(m.getDeclaringClass())) {
+                    return Optional.of(m);
+                }
+            } catch (NoSuchMethodException e) {
+                // try next
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isModel(Class<?> type) {
+        return type.getName().startsWith(MODEL_PACKAGE + ".");
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Comparable x && a.getClass().isInstance(b)) {
+            return x.compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+}
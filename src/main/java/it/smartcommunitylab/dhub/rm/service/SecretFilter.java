@@ -0,0 +1,264 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.util.StringUtils;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * Compiled secret filters. A secret matches when at least one of the filters matches:
+ * one of the label selectors, one of the owner API versions, one of the annotations (key and value)
+ * or one of the name regular expressions.
+ */
+final class SecretFilter implements Predicate<Secret> {
+
+    private static final Pattern REQUIREMENT = Pattern.compile(
+        "^(!)?\\s*([^\\s=!(),]+)(?:\\s*(==|=|!=)\\s*([^\\s=!(),]*)|\\s+(in|notin)\\s*\\(([^()]*)\\))?$"
+    );
+
+    private final List<String> labelSelectors;
+    private final List<List<Requirement>> selectors;
+    private final Set<String> owners;
+    private final Map<String, String> annotations;
+    private final List<Pattern> names;
+
+    private SecretFilter(
+        List<String> labelSelectors,
+        Set<String> owners,
+        Map<String, String> annotations,
+        List<Pattern> names
+    ) {
+        this.labelSelectors = Collections.unmodifiableList(labelSelectors);
+        this.selectors = labelSelectors.stream().map(SecretFilter::parseSelector).toList();
+        this.owners = Collections.unmodifiableSet(owners);
+        this.annotations = Collections.unmodifiableMap(annotations);
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Compile the filters from configuration
+     * @param labelFilters pipe-separated label selectors
+     * @param ownerFilters comma-separated owner API versions
+     * @param annotationFilters pipe-separated key=value annotations
+     * @param nameFilters comma-separated name regular expressions
+     * @return
+     */
+    static SecretFilter compile(String labelFilters, String ownerFilters, String annotationFilters, String nameFilters) {
+        List<String> labelSelectors = new ArrayList<>();
+        if (StringUtils.hasText(labelFilters)) {
+            Arrays.stream(labelFilters.split("\\|")).map(String::trim).filter(StringUtils::hasText).forEach(labelSelectors::add);
+        }
+        Map<String, String> annotations = new HashMap<>();
+        if (StringUtils.hasText(annotationFilters)) {
+            Arrays.asList(annotationFilters.split("\\|")).forEach(a -> {
+                String[] arr = a.split("=");
+                annotations.put(arr[0].trim(), arr[1].trim());
+            });
+        }
+        Set<String> owners = new HashSet<>();
+        if (StringUtils.hasText(ownerFilters)) {
+            owners.addAll(StringUtils.commaDelimitedListToSet(ownerFilters));
+        }
+        List<Pattern> names = new ArrayList<>();
+        if (StringUtils.hasText(nameFilters)) {
+            StringUtils.commaDelimitedListToSet(nameFilters).forEach(n -> names.add(Pattern.compile(n)));
+        }
+        return new SecretFilter(labelSelectors, owners, annotations, names);
+    }
+
+    /**
+     * @return true if no filter is defined, i.e. no secret is visible
+     */
+    boolean isEmpty() {
+        return labelSelectors.isEmpty() && owners.isEmpty() && annotations.isEmpty() && names.isEmpty();
+    }
+
+    /**
+     * @return true if the filters can be evaluated only on the whole namespace
+     * (owner, annotation or name filters are defined)
+     */
+    boolean requiresNamespace() {
+        return !owners.isEmpty() || !annotations.isEmpty() || !names.isEmpty();
+    }
+
+    /**
+     * @return true if the matching secrets can be found with the owner and annotation indexes only
+     */
+    boolean isIndexed() {
+        return labelSelectors.isEmpty() && names.isEmpty();
+    }
+
+    List<String> getLabelSelectors() {
+        return labelSelectors;
+    }
+
+    Set<String> getOwners() {
+        return owners;
+    }
+
+    /**
+     * @return index keys of the annotation filters
+     */
+    Set<String> getAnnotationKeys() {
+        return annotations.entrySet().stream().map(e -> annotationKey(e.getKey(), e.getValue())).collect(Collectors.toSet());
+    }
+
+    /**
+     * Index function for owner API versions
+     * @param s
+     * @return
+     */
+    static List<String> ownerIndex(Secret s) {
+        List<OwnerReference> refs = s.getMetadata().getOwnerReferences();
+        if (refs == null || refs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return refs.stream().map(OwnerReference::getApiVersion).distinct().toList();
+    }
+
+    /**
+     * Index function for the annotations which are used as filters
+     * @param s
+     * @return
+     */
+    List<String> annotationIndex(Secret s) {
+        Map<String, String> values = s.getMetadata().getAnnotations();
+        if (values == null || values.isEmpty() || annotations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        annotations.keySet().forEach(k -> {
+            if (values.containsKey(k)) {
+                keys.add(annotationKey(k, values.get(k)));
+            }
+        });
+        return keys;
+    }
+
+    private static String annotationKey(String key, String value) {
+        return key + "=" + value;
+    }
+
+    /**
+     * Check if the secret matches the label selectors
+     * @param s
+     * @return
+     */
+    boolean matchesLabels(Secret s) {
+        if (selectors.isEmpty()) {
+            return false;
+        }
+        Map<String, String> labels = s.getMetadata().getLabels() != null ? s.getMetadata().getLabels() : Collections.emptyMap();
+        for (List<Requirement> selector : selectors) {
+            if (selector.stream().allMatch(r -> r.matches(labels))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean test(Secret s) {
+        ObjectMeta meta = s.getMetadata();
+        // check owners: apiVersion in the list of owners
+        if (!owners.isEmpty() && meta.getOwnerReferences() != null) {
+            for (OwnerReference o : meta.getOwnerReferences()) {
+                if (owners.contains(o.getApiVersion())) {
+                    return true;
+                }
+            }
+        }
+        // check annotations: should match at least one
+        if (!annotations.isEmpty() && meta.getAnnotations() != null) {
+            for (Map.Entry<String, String> e : annotations.entrySet()) {
+                if (e.getValue().equals(meta.getAnnotations().get(e.getKey()))) {
+                    return true;
+                }
+            }
+        }
+        // check names: regexp
+        for (Pattern p : names) {
+            if (p.matcher(meta.getName()).matches()) {
+                return true;
+            }
+        }
+        return matchesLabels(s);
+    }
+
+    /**
+     * Parse a K8S label selector (equality and set based requirements)
+     * @param selector
+     * @return
+     */
+    private static List<Requirement> parseSelector(String selector) {
+        List<Requirement> requirements = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= selector.length(); i++) {
+            char c = i < selector.length() ? selector.charAt(i) : ',';
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == ',' && depth == 0) {
+                String part = selector.substring(start, i).trim();
+                if (!part.isEmpty()) {
+                    requirements.add(parseRequirement(part, selector));
+                }
+                start = i + 1;
+            }
+        }
+        return requirements;
+    }
+
+    private static Requirement parseRequirement(String part, String selector) {
+        Matcher m = REQUIREMENT.matcher(part);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid label selector: " + selector);
+        }
+        boolean not = m.group(1) != null;
+        String key = m.group(2);
+        if (not) {
+            if (m.group(3) != null || m.group(5) != null) {
+                throw new IllegalArgumentException("Invalid label selector: " + selector);
+            }
+            return labels -> !labels.containsKey(key);
+        }
+        if (m.group(3) != null) {
+            String value = m.group(4);
+            if ("!=".equals(m.group(3))) {
+                return labels -> !value.equals(labels.get(key));
+            }
+            return labels -> value.equals(labels.get(key));
+        }
+        if (m.group(5) != null) {
+            Set<String> values = StringUtils.commaDelimitedListToSet(m.group(6)).stream().map(String::trim).collect(Collectors.toSet());
+            if ("in".equals(m.group(5))) {
+                return labels -> labels.containsKey(key) && values.contains(labels.get(key));
+            }
+            return labels -> !labels.containsKey(key) || !values.contains(labels.get(key));
+        }
+        return labels -> labels.containsKey(key);
+    }
+
+    @FunctionalInterface
+    private interface Requirement {
+        boolean matches(Map<String, String> labels);
+    }
+}
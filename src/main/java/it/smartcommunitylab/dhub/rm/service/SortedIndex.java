@@ -0,0 +1,346 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Index of values by key, kept sorted by key and by the additional orders registered on creation.
+ *
+ * <p>
+ * Each order is an immutable balanced search tree (treap) with subtree sizes: writes are serialized
+ * and replace the tree, copying only the path to the changed node (O(log n)), reads are lock-free and
+ * work on the current tree. A sorted view supports positional access in O(log n), so a page costs
+ * O(page size * log n) regardless of its offset.
+ * </p>
+ * @param <V> value type
+ */
+public final class SortedIndex<V> {
+
+    private final Function<V, String> keyFunction;
+    private final Map<String, V> byKey = new ConcurrentHashMap<>();
+
+    // key order first, then the registered orders
+    private final List<Comparator<V>> comparators = new ArrayList<>();
+    private final Map<String, Integer> orderNames = new HashMap<>();
+    private final Tree<V>[] trees;
+
+    /**
+     * @param keyFunction unique key of the values
+     */
+    public SortedIndex(Function<V, String> keyFunction) {
+        this(keyFunction, Collections.emptyMap());
+    }
+
+    /**
+     * @param keyFunction unique key of the values
+     * @param orders additional orders by name, ties are sorted by key
+     */
+    @SuppressWarnings("unchecked")
+    public SortedIndex(Function<V, String> keyFunction, Map<String, Comparator<V>> orders) {
+        this.keyFunction = keyFunction;
+        Comparator<V> byId = Comparator.comparing(keyFunction);
+        comparators.add(byId);
+        orders.forEach((name, order) -> {
+            orderNames.put(name, comparators.size());
+            comparators.add(order.thenComparing(byId));
+        });
+        trees = new Tree[comparators.size()];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new Tree<>(comparators.get(i));
+        }
+    }
+
+    /**
+     * Build an index sorted by key
+     * @param <V>
+     * @param keyFunction
+     * @param values
+     * @return
+     */
+    public static <V> SortedIndex<V> of(Function<V, String> keyFunction, Collection<V> values) {
+        return of(keyFunction, Collections.emptyMap(), values);
+    }
+
+    /**
+     * Build an index sorted by key and by the specified orders
+     * @param <V>
+     * @param keyFunction
+     * @param orders
+     * @param values
+     * @return
+     */
+    public static <V> SortedIndex<V> of(Function<V, String> keyFunction, Map<String, Comparator<V>> orders, Collection<V> values) {
+        SortedIndex<V> index = new SortedIndex<>(keyFunction, orders);
+        index.replaceAll(values);
+        return index;
+    }
+
+    /**
+     * Replace the content of the index, sorting the values once for each order
+     * @param values
+     */
+    public synchronized void replaceAll(Collection<V> values) {
+        byKey.clear();
+        values.forEach(v -> byKey.put(keyFunction.apply(v), v));
+        for (Tree<V> tree : trees) {
+            List<V> sorted = new ArrayList<>(byKey.values());
+            sorted.sort(tree.comparator);
+            tree.root = Tree.build(sorted);
+        }
+    }
+
+    /**
+     * Add or replace the value with the same key
+     * @param value
+     */
+    public synchronized void put(V value) {
+        V previous = byKey.put(keyFunction.apply(value), value);
+        if (previous == value) {
+            return;
+        }
+        for (Tree<V> tree : trees) {
+            // the position may change in the orders other than the key one
+            Node<V> root = previous != null ? tree.remove(tree.root, previous) : tree.root;
+            tree.root = tree.insert(root, value);
+        }
+    }
+
+    /**
+     * Remove the value with the specified key
+     * @param key
+     * @return the removed value, or null if not found
+     */
+    public synchronized V remove(String key) {
+        V previous = byKey.remove(key);
+        if (previous != null) {
+            for (Tree<V> tree : trees) {
+                tree.root = tree.remove(tree.root, previous);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @param key
+     * @return the value with the specified key, or null if not found
+     */
+    public V get(String key) {
+        return byKey.get(key);
+    }
+
+    public int size() {
+        return Node.size(trees[0].root);
+    }
+
+    /**
+     * Sorted view of the current content, not affected by later changes
+     * @return
+     */
+    public List<V> values() {
+        return new View<>(trees[0].root);
+    }
+
+    /**
+     * Sorted view of the current content in a registered order, not affected by later changes
+     * @param order
+     * @return null if the order is not maintained by the index
+     */
+    public List<V> values(String order) {
+        Integer i = orderNames.get(order);
+        return i != null ? new View<>(trees[i].root) : null;
+    }
+
+    /**
+     * Copy of a range of the sorted values
+     * @param offset
+     * @param size
+     * @return
+     */
+    public List<V> page(long offset, int size) {
+        return page(values(), offset, size);
+    }
+
+    /**
+     * Copy a page out of a sorted view, allocating only the page
+     * @param <V>
+     * @param values
+     * @param offset
+     * @param size
+     * @return
+     */
+    static <V> List<V> page(List<V> values, long offset, int size) {
+        if (offset >= values.size()) {
+            return Collections.emptyList();
+        }
+        int from = (int) offset;
+        return new ArrayList<>(values.subList(from, Math.min(from + size, values.size())));
+    }
+
+    /**
+     * Immutable treap node: ordered by value, heap-ordered by priority
+     */
+    private static final class Node<V> {
+
+        private final V value;
+        private final int priority;
+        // set once, before the node is published
+        private Node<V> left;
+        private Node<V> right;
+        private int size;
+
+        private Node(V value, int priority, Node<V> left, Node<V> right) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        private Node<V> with(Node<V> left, Node<V> right) {
+            return left == this.left && right == this.right ? this : new Node<>(value, priority, left, right);
+        }
+
+        private static int size(Node<?> node) {
+            return node != null ? node.size : 0;
+        }
+    }
+
+    /**
+     * One order of the values
+     */
+    private static final class Tree<V> {
+
+        private final Comparator<V> comparator;
+        private volatile Node<V> root;
+
+        private Tree(Comparator<V> comparator) {
+            this.comparator = comparator;
+        }
+
+        /**
+         * Build a treap out of sorted values in linear time (right spine stack)
+         */
+        private static <V> Node<V> build(List<V> sorted) {
+            if (sorted.isEmpty()) {
+                return null;
+            }
+            List<Node<V>> spine = new ArrayList<>();
+            for (V value : sorted) {
+                Node<V> node = new Node<>(value, ThreadLocalRandom.current().nextInt(), null, null);
+                Node<V> last = null;
+                while (!spine.isEmpty() && spine.get(spine.size() - 1).priority < node.priority) {
+                    last = spine.remove(spine.size() - 1);
+                }
+                node.left = last;
+                if (!spine.isEmpty()) {
+                    spine.get(spine.size() - 1).right = node;
+                }
+                spine.add(node);
+            }
+            Node<V> root = spine.get(0);
+            computeSizes(root);
+            return root;
+        }
+
+        private static int computeSizes(Node<?> node) {
+            if (node == null) {
+                return 0;
+            }
+            node.size = 1 + computeSizes(node.left) + computeSizes(node.right);
+            return node.size;
+        }
+
+        private Node<V> insert(Node<V> root, V value) {
+            Node<V>[] parts = split(root, value, false);
+            Node<V> node = new Node<>(value, ThreadLocalRandom.current().nextInt(), null, null);
+            return merge(merge(parts[0], node), parts[1]);
+        }
+
+        private Node<V> remove(Node<V> root, V value) {
+            Node<V>[] parts = split(root, value, false);
+            Node<V>[] rest = split(parts[1], value, true);
+            return merge(parts[0], rest[1]);
+        }
+
+        /**
+         * Split into the values before the specified one (or not after, when inclusive) and the others
+         */
+        @SuppressWarnings("unchecked")
+        private Node<V>[] split(Node<V> node, V value, boolean inclusive) {
+            if (node == null) {
+                return new Node[2];
+            }
+            int c = comparator.compare(node.value, value);
+            if (c < 0 || (inclusive && c == 0)) {
+                Node<V>[] parts = split(node.right, value, inclusive);
+                parts[0] = node.with(node.left, parts[0]);
+                return parts;
+            }
+            Node<V>[] parts = split(node.left, value, inclusive);
+            parts[1] = node.with(parts[1], node.right);
+            return parts;
+        }
+
+        private Node<V> merge(Node<V> a, Node<V> b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            if (a.priority > b.priority) {
+                return a.with(a.left, merge(a.right, b));
+            }
+            return b.with(merge(a, b.left), b.right);
+        }
+    }
+
+    /**
+     * List view of a tree, with positional access in O(log n)
+     */
+    private static final class View<V> extends AbstractList<V> {
+
+        private final Node<V> root;
+
+        private View(Node<V> root) {
+            this.root = root;
+        }
+
+        @Override
+        public V get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            Node<V> node = root;
+            while (true) {
+                int left = Node.size(node.left);
+                if (index < left) {
+                    node = node.left;
+                } else if (index == left) {
+                    return node.value;
+                } else {
+                    index -= left + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return Node.size(root);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Initialization work of the services (e.g. schema bootstrap, role expansion), run in parallel once the
+ * application context is started instead of blocking bean creation. Services register their tasks on
+ * construction. The health indicator (included in the readiness group) is down until all the tasks are
+ * completed, and reports the duration of each task.
+ * Failed tasks are retried with exponential backoff (e.g. API server or database not yet reachable); once
+ * the attempts are exhausted the liveness state is set to broken, so that the pod is restarted.
+ */
+@Component
+public class StartupTasks implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTasks.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+
+    private final ScheduledExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher publisher;
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    // name -> task, in registration order
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private boolean started = false;
+    private long startTime;
+
+    @Autowired
+    public StartupTasks(
+        @Value("${kubernetes.startup.parallelism:4}") int parallelism,
+        @Value("${kubernetes.startup.max-attempts:10}") int maxAttempts,
+        MeterRegistry meterRegistry,
+        ApplicationEventPublisher publisher
+    ) {
+        this(parallelism, maxAttempts, Duration.ofSeconds(1), meterRegistry, publisher);
+    }
+
+    StartupTasks(
+        int parallelism,
+        int maxAttempts,
+        Duration backoff,
+        MeterRegistry meterRegistry,
+        ApplicationEventPublisher publisher
+    ) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "krm-startup-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = Executors.newScheduledThreadPool(Math.max(1, parallelism), factory);
+        this.meterRegistry = meterRegistry;
+        this.publisher = publisher;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = backoff;
+    }
+
+    /**
+     * Register a task, run when the application is started (or right away if already started)
+     * @param name name of the phase in the report
+     * @param runnable
+     */
+    public synchronized void submit(String name, Runnable runnable) {
+        Task task = new Task(name, runnable);
+        if (tasks.putIfAbsent(name, task) != null) {
+            throw new IllegalArgumentException("Duplicate startup task: " + name);
+        }
+        if (started) {
+            executor.execute(task);
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        startTime = System.nanoTime();
+        logger.info("Running {} startup tasks: {}", tasks.size(), String.join(", ", tasks.keySet()));
+        tasks.values().forEach(executor::execute);
+        if (tasks.isEmpty()) {
+            logger.info("Startup completed");
+        }
+    }
+
+    /**
+     * @return true when all the registered tasks are completed successfully
+     */
+    public synchronized boolean isCompleted() {
+        return started && tasks.values().stream().allMatch(t -> t.state == State.COMPLETED);
+    }
+
+    private synchronized void onDone(Task task) {
+        meterRegistry
+            .timer("krm.startup.tasks", "task", task.name, "result", task.state == State.COMPLETED ? "success" : "error")
+            .record(task.duration, TimeUnit.NANOSECONDS);
+
+        if (task.state == State.FAILED) {
+            if (task.attempts < maxAttempts) {
+                // 1s, 2s, 4s... up to a minute
+                long delay = Math.min(backoff.toMillis() << Math.min(task.attempts - 1, 20), MAX_BACKOFF.toMillis());
+                logger.info("Retrying startup task {} in {} ms (attempt {} of {})", task.name, delay, task.attempts + 1, maxAttempts);
+                executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            logger.error("Startup task {} failed after {} attempts, liveness broken", task.name, task.attempts);
+            task.exhausted = true;
+            AvailabilityChangeEvent.publish(publisher, this, LivenessState.BROKEN);
+        }
+
+        if (tasks.values().stream().allMatch(t -> t.state == State.COMPLETED || t.exhausted)) {
+            logger.info(
+                "Startup completed in {} ms: {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                tasks.values().stream().map(Task::toString).collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    @Override
+    public synchronized Health health() {
+        Health.Builder builder = tasks.values().stream().anyMatch(t -> t.state == State.FAILED)
+            ? Health.down()
+            : isCompleted() ? Health.up() : Health.outOfService();
+        tasks.values().forEach(t -> builder.withDetail(t.name, t.details()));
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private enum State {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private class Task implements Runnable {
+
+        private final String name;
+        private final Runnable runnable;
+        private volatile State state = State.PENDING;
+        private volatile long duration;
+        private volatile String error;
+        private volatile int attempts;
+        private volatile boolean exhausted;
+
+        Task(String name, Runnable runnable) {
+            this.name = name;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            state = State.RUNNING;
+            attempts++;
+            long start = System.nanoTime();
+            try {
+                runnable.run();
+                duration = System.nanoTime() - start;
+                error = null;
+                state = State.COMPLETED;
+                logger.debug("Startup task {} completed in {} ms", name, TimeUnit.NANOSECONDS.toMillis(duration));
+            } catch (RuntimeException e) {
+                duration = System.nanoTime() - start;
+                error = e.getMessage();
+                state = State.FAILED;
+                logger.warn("Startup task " + name + " failed", e);
+            }
+            onDone(this);
+        }
+
+        Map<String, Object> details() {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", state.name().toLowerCase());
+            details.put("attempts", attempts);
+            if (state == State.COMPLETED || state == State.FAILED) {
+                details.put("durationMs", TimeUnit.NANOSECONDS.toMillis(duration));
+            }
+            if (error != null) {
+                details.put("error", error);
+            }
+            return details;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + (state == State.FAILED ? "failed" : TimeUnit.NANOSECONDS.toMillis(duration) + " ms");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+/**
+ * Informer handler keeping a sorted index of the resources of one or more informer stores up to date.
+ * On each change the entry is recomputed from the current content of the stores, so that the same
+ * resource may be in more than one store and events may be delivered late or replayed.
+ */
+final class StoreIndexHandler<T extends HasMetadata, V> implements ResourceEventHandler<T> {
+
+    private final List<SharedIndexInformer<T>> informers;
+    private final Function<SharedIndexInformer<T>, List<T>> content;
+    private final Function<T, V> mapper;
+    private final SortedIndex<V> index;
+
+    // key -> store object the indexed value was built from
+    private final Map<String, T> sources = new ConcurrentHashMap<>();
+
+    private StoreIndexHandler(
+        List<SharedIndexInformer<T>> informers,
+        Function<SharedIndexInformer<T>, List<T>> content,
+        Function<T, V> mapper,
+        SortedIndex<V> index
+    ) {
+        this.informers = informers;
+        this.content = content;
+        this.mapper = mapper;
+        this.index = index;
+    }
+
+    /**
+     * Build the index of the running informers and keep it up to date
+     * @param informers
+     * @param mapper conversion of the store objects, returning null for the resources not to index
+     * @param keyFunction key of the indexed values, i.e. the resource name
+     * @return
+     */
+    static <T extends HasMetadata, V> SortedIndex<V> bind(
+        List<SharedIndexInformer<T>> informers,
+        Function<T, V> mapper,
+        Function<V, String> keyFunction
+    ) {
+        return bind(informers, i -> i.getStore().list(), mapper, new SortedIndex<>(keyFunction));
+    }
+
+    /**
+     * Fill an empty index from a subset of the store content, e.g. read with the informer indexers,
+     * and keep it up to date
+     * @param informers
+     * @param content initial content of each informer: the store objects the mapper may accept
+     * @param mapper conversion of the store objects, returning null for the resources not to index
+     * @param index empty index, keyed by resource name
+     * @return the index
+     */
+    static <T extends HasMetadata, V> SortedIndex<V> bind(
+        List<SharedIndexInformer<T>> informers,
+        Function<SharedIndexInformer<T>, List<T>> content,
+        Function<T, V> mapper,
+        SortedIndex<V> index
+    ) {
+        StoreIndexHandler<T, V> handler = new StoreIndexHandler<>(informers, content, mapper, index);
+        // attach first: changes after the initial content is read are not lost
+        informers.forEach(i -> i.addEventHandler(handler));
+        handler.load();
+        return index;
+    }
+
+    private synchronized void load() {
+        Map<String, T> current = new LinkedHashMap<>();
+        informers.forEach(i -> content.apply(i).forEach(r -> current.putIfAbsent(Cache.metaNamespaceKeyFunc(r), r)));
+
+        List<V> values = new ArrayList<>(current.size());
+        current.forEach((key, r) -> {
+            V value = mapper.apply(r);
+            sources.put(key, r);
+            if (value != null) {
+                values.add(value);
+            }
+        });
+        index.replaceAll(values);
+    }
+
+    private synchronized void refresh(HasMetadata obj) {
+        String key = Cache.metaNamespaceKeyFunc(obj);
+        T current = null;
+        for (SharedIndexInformer<T> i : informers) {
+            current = i.getStore().getByKey(key);
+            if (current != null) {
+                break;
+            }
+        }
+
+        if (current == null) {
+            sources.remove(key);
+            index.remove(obj.getMetadata().getName());
+            return;
+        }
+        if (sources.put(key, current) == current) {
+            // replayed or already indexed
+            return;
+        }
+        V value = mapper.apply(current);
+        if (value != null) {
+            index.put(value);
+        } else {
+            index.remove(obj.getMetadata().getName());
+        }
+    }
+
+    @Override
+    public void onAdd(T obj) {
+        refresh(obj);
+    }
+
+    @Override
+    public void onUpdate(T oldObj, T newObj) {
+        refresh(newObj);
+    }
+
+    @Override
+    public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+        refresh(obj);
+    }
+}
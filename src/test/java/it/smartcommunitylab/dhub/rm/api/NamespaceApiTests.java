@@ -0,0 +1,178 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.api;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.SystemKeys;
+import it.smartcommunitylab.dhub.rm.config.AppConfig;
+import it.smartcommunitylab.dhub.rm.config.AuthenticationProperties;
+import it.smartcommunitylab.dhub.rm.config.RoleProperties;
+import it.smartcommunitylab.dhub.rm.config.SecurityConfig;
+import it.smartcommunitylab.dhub.rm.service.AccessControlService;
+import it.smartcommunitylab.dhub.rm.service.CustomResourceDefinitionService;
+import it.smartcommunitylab.dhub.rm.service.CustomResourceService;
+import it.smartcommunitylab.dhub.rm.service.K8SJobService;
+import it.smartcommunitylab.dhub.rm.service.NamespaceService;
+import it.smartcommunitylab.dhub.rm.service.StartupTasks;
+
+/**
+ * Namespace selection by path prefix and header, through the security filter chain
+ */
+@WebMvcTest(
+    controllers = { NamespaceApi.class, K8SJobApi.class },
+    properties = {
+        "kubernetes.namespace=default",
+        "kubernetes.namespaces=tenant-a,tenant-b",
+        "security.cors.origins=",
+        "auth.basic.username=admin",
+        "auth.basic.password=secret",
+        "access.roles[0].role=ROLE_USER",
+        "access.roles[0].resources=-",
+        "access.roles[1].role=ROLE_ADMIN",
+        "access.roles[1].resources=k8s_job",
+        "access.roles[1].namespaces=default,tenant-a",
+    }
+)
+@Import(
+    {
+        AppConfig.class,
+        SecurityConfig.class,
+        AuthenticationProperties.class,
+        RoleProperties.class,
+        AccessControlService.class,
+        NamespaceService.class,
+        NamespaceApiTests.Config.class,
+    }
+)
+class NamespaceApiTests {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AccessControlService authz;
+
+    @MockBean
+    private KubernetesClient client;
+
+    @MockBean
+    private StartupTasks startupTasks;
+
+    @MockBean
+    private CustomResourceService crService;
+
+    @MockBean
+    private CustomResourceDefinitionService crdService;
+
+    @MockBean
+    private K8SJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        when(crdService.findAllIds()).thenReturn(Collections.emptyList());
+        authz.initRoles();
+        when(jobService.findAll(any(), any(), any(), any())).thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 20), 0));
+    }
+
+    @Test
+    void defaultNamespace() throws Exception {
+        mvc.perform(get("/api/k8s_job").with(httpBasic("admin", "secret"))).andExpect(status().isOk());
+        verify(jobService).findAll(eq("default"), any(), any(), any());
+    }
+
+    @Test
+    void pathPrefix() throws Exception {
+        mvc.perform(get("/api/namespaces/tenant-a/k8s_job").with(httpBasic("admin", "secret"))).andExpect(status().isOk());
+        verify(jobService).findAll(eq("tenant-a"), any(), any(), any());
+    }
+
+    @Test
+    void header() throws Exception {
+        mvc
+            .perform(get("/api/k8s_job").header(SystemKeys.NAMESPACE_HEADER, "tenant-a").with(httpBasic("admin", "secret")))
+            .andExpect(status().isOk());
+        verify(jobService).findAll(eq("tenant-a"), any(), any(), any());
+    }
+
+    @Test
+    void pathPrefixRequiresAuthentication() throws Exception {
+        mvc.perform(get("/api/namespaces/tenant-a/k8s_job")).andExpect(status().isForbidden());
+        mvc.perform(get("/api/namespaces/tenant-a/k8s_job").with(httpBasic("admin", "wrong"))).andExpect(status().isForbidden());
+        verifyNoInteractions(jobService);
+    }
+
+    @Test
+    void namespaceWithoutRole() throws Exception {
+        mvc.perform(get("/api/namespaces/tenant-b/k8s_job").with(httpBasic("admin", "secret"))).andExpect(status().isForbidden());
+        mvc
+            .perform(get("/api/k8s_job").header(SystemKeys.NAMESPACE_HEADER, "tenant-b").with(httpBasic("admin", "secret")))
+            .andExpect(status().isForbidden());
+        verifyNoInteractions(jobService);
+    }
+
+    @Test
+    void unmanagedNamespace() throws Exception {
+        mvc.perform(get("/api/namespaces/other/k8s_job").with(httpBasic("admin", "secret"))).andExpect(status().isForbidden());
+        mvc
+            .perform(get("/api/k8s_job").header(SystemKeys.NAMESPACE_HEADER, "other").with(httpBasic("admin", "secret")))
+            .andExpect(status().isForbidden());
+        verifyNoInteractions(jobService);
+    }
+
+    @Test
+    void jsonLogIsLimitedByDefault() throws Exception {
+        when(jobService.getLog(any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        mvc.perform(get("/api/namespaces/tenant-a/k8s_job/job-1/log").with(httpBasic("admin", "secret"))).andExpect(status().isOk());
+        verify(jobService).getLog("tenant-a", "job-1", 1000, null, 1048576);
+        mvc
+            .perform(get("/api/k8s_job/job-1/log").param("tailLines", "5").with(httpBasic("admin", "secret")))
+            .andExpect(status().isOk());
+        verify(jobService).getLog("default", "job-1", 5, null, 1048576);
+    }
+
+    @Test
+    void listNamespaces() throws Exception {
+        mvc
+            .perform(get("/api/namespaces").with(httpBasic("admin", "secret")))
+            .andExpect(status().isOk())
+            .andExpect(content().json("[\"default\",\"tenant-a\"]", true));
+        mvc.perform(get("/api/namespaces")).andExpect(status().isForbidden());
+    }
+}
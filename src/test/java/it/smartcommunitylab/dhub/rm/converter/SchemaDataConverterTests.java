@@ -0,0 +1,104 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class SchemaDataConverterTests {
+
+    private static Map<String, Serializable> schema() {
+        HashMap<String, Serializable> size = new HashMap<>();
+        size.put("type", "integer");
+        size.put("minimum", 1);
+        HashMap<String, Serializable> properties = new HashMap<>();
+        properties.put("size", size);
+        ArrayList<String> required = new ArrayList<>(List.of("size"));
+
+        Map<String, Serializable> schema = new HashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        schema.put("required", required);
+        return schema;
+    }
+
+    @Test
+    void smileRoundTrip() {
+        SchemaDataConverter converter = new SchemaDataConverter(SchemaDataConverter.FORMAT_SMILE);
+        byte[] data = converter.convertToDatabaseColumn(schema());
+        assertEquals(SchemaDataConverter.SMILE_DEFLATE, data[0]);
+        assertEquals(schema(), converter.convertToEntityAttribute(data));
+    }
+
+    @Test
+    void jsonRoundTrip() {
+        SchemaDataConverter converter = new SchemaDataConverter(SchemaDataConverter.FORMAT_JSON);
+        byte[] data = converter.convertToDatabaseColumn(schema());
+        assertEquals('{', data[0]);
+        assertEquals(schema(), converter.convertToEntityAttribute(data));
+    }
+
+    @Test
+    void readsEitherFormat() {
+        byte[] smile = new SchemaDataConverter(SchemaDataConverter.FORMAT_SMILE).convertToDatabaseColumn(schema());
+        byte[] json = new SchemaDataConverter(SchemaDataConverter.FORMAT_JSON).convertToDatabaseColumn(schema());
+
+        SchemaDataConverter converter = new SchemaDataConverter(SchemaDataConverter.FORMAT_JSON);
+        assertEquals(schema(), converter.convertToEntityAttribute(smile));
+        assertEquals(schema(), converter.convertToEntityAttribute(json));
+        assertEquals(schema(), LazySchemaMap.fromJson(SchemaDataConverter.toJson(schema())));
+    }
+
+    @Test
+    void unchangedMapIsNotEncodedAgain() {
+        SchemaDataConverter smile = new SchemaDataConverter(SchemaDataConverter.FORMAT_SMILE);
+        byte[] data = smile.convertToDatabaseColumn(schema());
+        LazySchemaMap loaded = (LazySchemaMap) smile.convertToEntityAttribute(data);
+
+        assertSame(data, smile.convertToDatabaseColumn(loaded));
+        assertTrue(loaded.isEncoded());
+
+        // different format: encoded again
+        byte[] json = new SchemaDataConverter(SchemaDataConverter.FORMAT_JSON).convertToDatabaseColumn(loaded);
+        assertEquals('{', json[0]);
+
+        // decoded, possibly changed: encoded again
+        loaded.put("description", "widget");
+        byte[] changed = smile.convertToDatabaseColumn(loaded);
+        assertNotSame(data, changed);
+        assertEquals("widget", smile.convertToEntityAttribute(changed).get("description"));
+    }
+
+    @Test
+    void equalsWithoutDecoding() {
+        byte[] data = new SchemaDataConverter(SchemaDataConverter.FORMAT_SMILE).convertToDatabaseColumn(schema());
+        LazySchemaMap a = new LazySchemaMap(data);
+        LazySchemaMap b = new LazySchemaMap(data.clone());
+
+        // same stored representation, as compared by the dirty check of the persistence context
+        assertEquals(a, b);
+        assertTrue(a.isEncoded());
+        assertTrue(b.isEncoded());
+
+        // same content in another format: decoded and compared as maps
+        LazySchemaMap json = LazySchemaMap.fromJson(SchemaDataConverter.toJson(schema()));
+        assertEquals(a, json);
+        assertFalse(a.isEncoded());
+
+        b.put("description", "changed");
+        assertFalse(b.equals(a));
+    }
+}
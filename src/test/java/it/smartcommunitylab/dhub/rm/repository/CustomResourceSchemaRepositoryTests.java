@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.model.CustomResourceSchema;
+import it.smartcommunitylab.dhub.rm.model.dto.CustomResourceSchemaDTO;
+import it.smartcommunitylab.dhub.rm.service.CustomResourceDefinitionService;
+import it.smartcommunitylab.dhub.rm.service.CustomResourceSchemaService;
+import it.smartcommunitylab.dhub.rm.service.K8SAuthorizationService;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Schemas stored as JSON text by previous versions, and their migration on read
+ */
+@DataJpaTest
+class CustomResourceSchemaRepositoryTests {
+
+    private static final String CRD_ID = "widgets.example.com";
+    private static final String LEGACY_JSON = "{\"type\":\"object\",\"properties\":{\"size\":{\"type\":\"integer\"}}}";
+
+    @Autowired
+    private CustomResourceSchemaRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private CustomResourceDefinitionService crdService;
+    private CustomResourceSchemaService service;
+
+    @BeforeEach
+    void setUp() {
+        crdService = mock(CustomResourceDefinitionService.class);
+        when(crdService.findAll(any(), anyBoolean(), any(Pageable.class))).thenReturn(Page.empty());
+        when(crdService.crdExists(any(), any())).thenReturn(true);
+        K8SAuthorizationService authService = mock(K8SAuthorizationService.class);
+        when(authService.isCrdAllowed(any())).thenReturn(true);
+        service = new CustomResourceSchemaService(repository, crdService, authService, null, new SimpleMeterRegistry());
+
+        jdbc.update(
+            "insert into custom_resource_schema (id, crd_id, version, crd_schema) values (?, ?, ?, ?)",
+            "legacy",
+            CRD_ID,
+            "v1",
+            LEGACY_JSON
+        );
+    }
+
+    private Map<String, Object> row(String id) {
+        return jdbc.queryForMap("select crd_schema, crd_schema_data from custom_resource_schema where id = ?", id);
+    }
+
+    @Test
+    void readLegacyRow() {
+        CustomResourceSchema schema = repository.findById("legacy").orElseThrow();
+        assertEquals("object", schema.getSchema().get("type"));
+        assertEquals(Map.of("size", Map.of("type", "integer")), schema.getSchema().get("properties"));
+    }
+
+    @Test
+    void legacyColumnNotWritten() throws Exception {
+        CustomResourceSchemaDTO dto = new CustomResourceSchemaDTO();
+        dto.setCrdId(CRD_ID);
+        dto.setVersion("v2");
+        dto.setSchemaAsString("{\"type\":\"object\"}");
+        String id = service.add(null, dto).getId();
+        repository.flush();
+
+        Map<String, Object> row = row(id);
+        assertNull(row.get("crd_schema"));
+        assertNotNull(row.get("crd_schema_data"));
+    }
+
+    @Test
+    void migrateOnRead() {
+        assertEquals("object", service.findById("legacy").getSchema().get("type").asText());
+        repository.flush();
+
+        Map<String, Object> row = row("legacy");
+        assertNull(row.get("crd_schema"));
+        assertNotNull(row.get("crd_schema_data"));
+        entityManager.clear();
+        assertEquals("object", repository.findById("legacy").orElseThrow().getSchema().get("type"));
+    }
+
+    @Test
+    void binaryColumnPreferred() {
+        CustomResourceSchema schema = repository.findById("legacy").orElseThrow();
+        schema.setSchema(Map.<String, Serializable>of("type", "string"));
+        repository.saveAndFlush(schema);
+
+        entityManager.clear();
+        assertEquals(LEGACY_JSON, row("legacy").get("crd_schema"));
+        assertEquals("string", repository.findById("legacy").orElseThrow().getSchema().get("type"));
+    }
+}
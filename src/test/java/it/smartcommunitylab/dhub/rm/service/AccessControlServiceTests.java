@@ -0,0 +1,128 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.smartcommunitylab.dhub.rm.config.AuthenticationProperties;
+import it.smartcommunitylab.dhub.rm.config.RoleProperties;
+import it.smartcommunitylab.dhub.rm.service.AccessControlService.RESOURCE_OP;
+
+/**
+ * Permissions resolved once per request and authentication
+ */
+class AccessControlServiceTests {
+
+    private NamespaceService namespaceService;
+    private RoleProperties roleProperties;
+    private AccessControlService service;
+
+    @BeforeEach
+    void setUp() {
+        roleProperties = new RoleProperties();
+        roleProperties.setRoles(List.of(role("ROLE_READER", "k8s_job::read"), role("ROLE_WRITER", "k8s_job::write")));
+
+        AuthenticationProperties.BasicAuthenticationProperties basic = new AuthenticationProperties.BasicAuthenticationProperties();
+        basic.setUsername("user");
+        basic.setPassword("password");
+        AuthenticationProperties authenticationProperties = new AuthenticationProperties();
+        authenticationProperties.setBasic(basic);
+        authenticationProperties.setOauth2(new AuthenticationProperties.OAuth2AuthenticationProperties());
+
+        CustomResourceDefinitionService crdService = mock(CustomResourceDefinitionService.class);
+        when(crdService.findAllIds()).thenReturn(Collections.emptyList());
+        namespaceService = mock(NamespaceService.class);
+        when(namespaceService.current()).thenReturn("default");
+        when(namespaceService.getDefaultNamespace()).thenReturn("default");
+
+        service = new AccessControlService();
+        ReflectionTestUtils.setField(service, "authenticationProperties", authenticationProperties);
+        ReflectionTestUtils.setField(service, "roleProperties", roleProperties);
+        ReflectionTestUtils.setField(service, "service", crdService);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "namespaceService", namespaceService);
+        service.initMetrics();
+        service.initRoles();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static RoleProperties.RoleConfig role(String name, String resource) {
+        RoleProperties.RoleConfig config = new RoleProperties.RoleConfig();
+        config.setRole(name);
+        config.setResources(List.of(resource));
+        return config;
+    }
+
+    private static void authenticate(String... authorities) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList(authorities))
+        );
+    }
+
+    @Test
+    void resolvedOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        authenticate("ROLE_READER");
+
+        assertTrue(service.canAccess("k8s_job", RESOURCE_OP.read));
+        assertTrue(service.canAccess("k8s_job", RESOURCE_OP.list));
+        assertFalse(service.canAccess("k8s_job", RESOURCE_OP.write));
+        assertFalse(service.canAccess("k8s_service", RESOURCE_OP.read));
+        verify(namespaceService, times(1)).current();
+    }
+
+    @Test
+    void resolvedAgainOnChanges() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        authenticate("ROLE_READER");
+        assertFalse(service.canAccess("k8s_job", RESOURCE_OP.write));
+
+        // new authentication
+        authenticate("ROLE_WRITER");
+        assertTrue(service.canAccess("k8s_job", RESOURCE_OP.write));
+
+        // reloaded roles
+        roleProperties.setRoles(List.of(role("ROLE_WRITER", "k8s_job::read")));
+        service.initRoles();
+        assertFalse(service.canAccess("k8s_job", RESOURCE_OP.write));
+        verify(namespaceService, times(3)).current();
+    }
+
+    @Test
+    void resolvedOutsideRequests() {
+        authenticate("ROLE_WRITER");
+        assertTrue(service.canAccess("k8s_job", RESOURCE_OP.write));
+        assertTrue(service.canAccess("k8s_job", RESOURCE_OP.read));
+        verify(namespaceService, times(2)).current();
+
+        SecurityContextHolder.clearContext();
+        assertFalse(service.canAccess("k8s_job", RESOURCE_OP.read));
+    }
+}
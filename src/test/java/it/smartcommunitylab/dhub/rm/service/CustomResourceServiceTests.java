@@ -0,0 +1,438 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.model.Scope;
+import io.fabric8.mockwebserver.Context;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion.VersionFlag;
+import okhttp3.mockwebserver.MockWebServer;
+import it.smartcommunitylab.dhub.rm.exception.ValidationException;
+import it.smartcommunitylab.dhub.rm.model.IdAwareCustomResource;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent.EVENT_TYPE;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkOperationDTO.BULK_OP;
+import it.smartcommunitylab.dhub.rm.model.dto.BulkResultDTO;
+
+class CustomResourceServiceTests {
+
+    private static final String NAMESPACE = "test";
+    private static final String CRD_ID = "widgets.example.com";
+    private static final String VERSION = "v1";
+    private static final int NAMESPACE_SIZE = 50;
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private K8SCallExecutor callExecutor;
+    private CustomResourceService service;
+    private CustomResourceDefinitionContext context;
+
+    @BeforeEach
+    void setUp() {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(), new KubernetesCrudDispatcher(), true);
+        server.init();
+        client = server.createClient();
+
+        context = new CustomResourceDefinitionContext.Builder()
+            .withScope(Scope.NAMESPACED.value())
+            .withGroup("example.com")
+            .withName(CRD_ID)
+            .withPlural("widgets")
+            .withVersion(VERSION)
+            .withKind("Widget")
+            .build();
+        server.expectCustomResource(context);
+
+        for (int i = 0; i < NAMESPACE_SIZE; i++) {
+            create(name(i), i % 2 == 0 ? "krm" : "other");
+        }
+
+        callExecutor = new K8SCallExecutor(4);
+        service = service(client);
+    }
+
+    private CustomResourceService service(KubernetesClient client) {
+        CustomResourceDefinitionService crdService = mock(CustomResourceDefinitionService.class);
+        when(crdService.fetchStoredContext(CRD_ID)).thenReturn(context);
+        CustomResourceSchemaService schemaService = mock(CustomResourceSchemaService.class);
+        when(schemaService.getJsonSchema(any())).thenReturn(
+            JsonSchemaFactory.getInstance(VersionFlag.V4).getSchema(
+                "{\"type\":\"object\",\"properties\":{\"spec\":{\"type\":\"object\",\"properties\":{\"size\":{\"type\":\"integer\"}}}}}"
+            )
+        );
+        K8SAuthorizationService authService = mock(K8SAuthorizationService.class);
+        when(authService.isCrdAllowed(anyString())).thenReturn(true);
+
+        CustomResourceService service = new CustomResourceService(client, crdService, schemaService, authService, callExecutor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "createdByLabel", "krm");
+        ReflectionTestUtils.setField(service, "bulkMaxItems", 10);
+        ReflectionTestUtils.setField(service, "bulkParallelism", 2);
+        return service;
+    }
+
+    private void create(String name, String createdBy) {
+        client.genericKubernetesResources(context).inNamespace(NAMESPACE).resource(widget(name, createdBy, 1)).create();
+    }
+
+    private static GenericKubernetesResource widget(String name, String createdBy, Object size) {
+        GenericKubernetesResource cr = new GenericKubernetesResourceBuilder()
+            .withApiVersion("example.com/" + VERSION)
+            .withKind("Widget")
+            .withNewMetadata()
+            .withName(name)
+            .withNamespace(NAMESPACE)
+            .withLabels(Map.of("app.kubernetes.io/created-by", createdBy))
+            .endMetadata()
+            .build();
+        cr.setAdditionalProperty("spec", Map.of("size", size));
+        return cr;
+    }
+
+    private static BulkOperationDTO operation(BULK_OP op, String id, GenericKubernetesResource cr) {
+        BulkOperationDTO dto = new BulkOperationDTO();
+        dto.setOp(op);
+        dto.setId(id);
+        dto.setResource(cr != null ? new IdAwareCustomResource(cr) : null);
+        return dto;
+    }
+
+    // names sort in creation order, as the mock server lists in creation order
+    private static String name(int i) {
+        return String.format("widget-%03d", i);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callExecutor.shutdown();
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    void findAllByIdsCostsOneCallPerId() {
+        List<String> ids = Arrays.asList(name(0), name(1), name(2), name(4), "missing");
+
+        int before = server.getRequestCount();
+        Page<IdAwareCustomResource> page = service.findAll(CRD_ID, NAMESPACE, ids, PageRequest.ofSize(10));
+        int calls = server.getRequestCount() - before;
+
+        // one GET per requested id, independent of the namespace size
+        assertEquals(ids.size(), calls);
+        // widget-1 is not owned, missing does not exist
+        assertEquals(List.of(name(0), name(2), name(4)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+    }
+
+    @Test
+    void findByIdCostsOneCall() {
+        int before = server.getRequestCount();
+        IdAwareCustomResource cr = service.findById(CRD_ID, name(6), NAMESPACE);
+
+        assertEquals(1, server.getRequestCount() - before);
+        assertEquals(name(6), cr.getId());
+    }
+
+    @Test
+    void findAllReturnsRequestedPage() {
+        ReflectionTestUtils.setField(service, "listChunkSize", 7);
+
+        Page<IdAwareCustomResource> page = service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(1, 10));
+
+        // only owned (even) widgets are listed, ordered by name
+        List<String> expected = IntStream.range(0, NAMESPACE_SIZE)
+            .filter(i -> i % 2 == 0)
+            .mapToObj(CustomResourceServiceTests::name)
+            .skip(10)
+            .limit(10)
+            .toList();
+        assertEquals(NAMESPACE_SIZE / 2, page.getTotalElements());
+        assertEquals(expected, page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+
+        // the count follows the changes made through the service
+        service.add(CRD_ID, new IdAwareCustomResource(widget("widget-added", "", 1)), NAMESPACE);
+        assertEquals(NAMESPACE_SIZE / 2 + 1, service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(0, 10)).getTotalElements());
+        service.delete(CRD_ID, name(0), NAMESPACE);
+        service.delete(CRD_ID, name(2), NAMESPACE);
+        assertEquals(NAMESPACE_SIZE / 2 - 1, service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void findAllCountsFromNameIndex() {
+        // expectation mode: the responses are scripted, with continue tokens
+        KubernetesMockServer chunked = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(), false);
+        chunked.init();
+        try (KubernetesClient chunkedClient = chunked.createClient()) {
+            expectChunk(chunked, null, "c1", 0, 3);
+            expectChunk(chunked, "c1", "c2", 3, 6);
+            expectChunk(chunked, "c2", null, 6, 9);
+            IntStream.range(0, 9).forEach(i -> expectGet(chunked, i));
+            CustomResourceService chunkedService = service(chunkedClient);
+            ReflectionTestUtils.setField(chunkedService, "listChunkSize", 3);
+
+            Page<IdAwareCustomResource> page = chunkedService.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(1, 4));
+
+            // the names are listed in chunks, then only the CRs of the page are read
+            assertEquals(List.of(name(4), name(5), name(6), name(7)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+            assertEquals(9, page.getTotalElements());
+            assertEquals(3 + 4, chunked.getRequestCount());
+
+            // the name index is reused by the next pages
+            page = chunkedService.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(0, 3));
+            assertEquals(List.of(name(0), name(1), name(2)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+            assertEquals(9, page.getTotalElements());
+            assertEquals(3 + 4 + 3, chunked.getRequestCount());
+        } finally {
+            chunked.destroy();
+        }
+    }
+
+    @Test
+    void findAllRestartsExpiredList() {
+        KubernetesMockServer chunked = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(), false);
+        chunked.init();
+        try (KubernetesClient chunkedClient = chunked.createClient()) {
+            expectChunk(chunked, null, "c1", 0, 3);
+            chunked.expect().get().withPath(listPath("c1")).andReturn(410, gone()).once();
+            expectChunk(chunked, null, "c1b", 0, 3);
+            expectChunk(chunked, "c1b", null, 3, 5);
+            IntStream.range(0, 5).forEach(i -> expectGet(chunked, i));
+            CustomResourceService chunkedService = service(chunkedClient);
+            ReflectionTestUtils.setField(chunkedService, "listChunkSize", 3);
+
+            Page<IdAwareCustomResource> page = chunkedService.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(1, 3));
+
+            // the list is read again from the start
+            assertEquals(List.of(name(3), name(4)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+            assertEquals(5, page.getTotalElements());
+
+            // an expired list is not reported as an empty page
+            chunkedService.release(NAMESPACE);
+            for (int i = 0; i < 4; i++) {
+                expectChunk(chunked, null, "c1", 0, 3);
+                chunked.expect().get().withPath(listPath("c1")).andReturn(410, gone()).once();
+            }
+            KubernetesClientException e = assertThrows(
+                KubernetesClientException.class,
+                () -> chunkedService.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(1, 3))
+            );
+            assertEquals(410, e.getCode());
+        } finally {
+            chunked.destroy();
+        }
+    }
+
+    private void expectChunk(KubernetesMockServer chunked, String token, String next, int from, int to) {
+        GenericKubernetesResourceList list = new GenericKubernetesResourceList();
+        list.setMetadata(new ListMetaBuilder().withContinue(next).build());
+        list.setItems(IntStream.range(from, to).mapToObj(i -> widget(name(i), "krm", 1)).toList());
+        chunked.expect().get().withPath(listPath(token)).andReturn(200, list).once();
+    }
+
+    private void expectGet(KubernetesMockServer chunked, int i) {
+        chunked.expect().get()
+            .withPath("/apis/example.com/" + VERSION + "/namespaces/" + NAMESPACE + "/widgets/" + name(i))
+            .andReturn(200, widget(name(i), "krm", 1))
+            .always();
+    }
+
+    private static String listPath(String token) {
+        return "/apis/example.com/" + VERSION + "/namespaces/" + NAMESPACE + "/widgets?limit=3"
+            + (token != null ? "&continue=" + token : "") + "&labelSelector=app.kubernetes.io%2Fcreated-by%3Dkrm";
+    }
+
+    private static Status gone() {
+        return new StatusBuilder().withCode(410).withReason("Expired").withMessage("continue token expired").build();
+    }
+
+    @Test
+    void findAllSortsAndFilters() {
+        client.genericKubernetesResources(context).inNamespace(NAMESPACE).resource(widget("widget-sized-a", "krm", 5)).create();
+        client.genericKubernetesResources(context).inNamespace(NAMESPACE).resource(widget("widget-sized-b", "krm", 3)).create();
+
+        Page<IdAwareCustomResource> page = service.findAll(
+            CRD_ID, NAMESPACE, null, List.of("metadata.labels.app.kubernetes.io/created-by=krm"), PageRequest.of(0, 3, Sort.by(Sort.Order.desc("spec.size")))
+        );
+        // ties are ordered by id
+        assertEquals(List.of("widget-sized-a", "widget-sized-b", name(0)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+        assertEquals(NAMESPACE_SIZE / 2 + 2, page.getTotalElements());
+
+        page = service.findAll(CRD_ID, NAMESPACE, null, List.of("id~=sized", "spec.size!=3"), PageRequest.of(0, 10, Sort.by(Sort.Order.desc("id"))));
+        assertEquals(List.of("widget-sized-a"), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+
+        page = service.findAll(CRD_ID, NAMESPACE, null, null, PageRequest.of(0, 2, Sort.by(Sort.Order.desc("id"))));
+        assertEquals(List.of("widget-sized-b", "widget-sized-a"), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+
+        assertThrows(IllegalArgumentException.class, () -> service.findAll(CRD_ID, NAMESPACE, null, List.of("spec.size"), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findAllFromInformerIndex() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "informerEnabled", true);
+        try {
+            Page<IdAwareCustomResource> page = service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(2, 10));
+            assertEquals(NAMESPACE_SIZE / 2, page.getTotalElements());
+            assertEquals(List.of(name(40), name(42), name(44), name(46), name(48)), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+
+            // changes are applied to the index, out of range pages are empty
+            Thread.sleep(1000);
+            create("widget-000a", "krm");
+            client.genericKubernetesResources(context).inNamespace(NAMESPACE).withName(name(48)).delete();
+            long deadline = System.currentTimeMillis() + 10000;
+            do {
+                page = service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(0, 2));
+                if (page.getTotalElements() == NAMESPACE_SIZE / 2 && page.getContent().get(1).getId().equals("widget-000a")) {
+                    break;
+                }
+                Thread.sleep(100);
+            } while (System.currentTimeMillis() < deadline);
+            assertEquals(List.of(name(0), "widget-000a"), page.getContent().stream().map(IdAwareCustomResource::getId).toList());
+            assertEquals(NAMESPACE_SIZE / 2, page.getTotalElements());
+            assertEquals(0, service.findAll(CRD_ID, NAMESPACE, null, PageRequest.of(5, 10)).getContent().size());
+        } finally {
+            service.stopInformers();
+        }
+    }
+
+    @Test
+    void watchNotifiesOnlyNewChanges() throws InterruptedException {
+        BlockingQueue<ResourceEvent> events = new LinkedBlockingQueue<>();
+        Runnable stop = service.watch(CRD_ID, NAMESPACE, events::add);
+        try {
+            // let the watch open after the initial list
+            Thread.sleep(1000);
+            create("widget-new", "other");
+            create("widget-new-krm", "krm");
+            client.genericKubernetesResources(context).inNamespace(NAMESPACE).withName(name(0)).delete();
+
+            // existing widgets are not replayed, widgets not owned are skipped
+            ResourceEvent added = events.poll(10, TimeUnit.SECONDS);
+            assertEquals(EVENT_TYPE.ADDED, added.getType());
+            assertEquals("widget-new-krm", added.getId());
+            ResourceEvent deleted = events.poll(10, TimeUnit.SECONDS);
+            assertEquals(EVENT_TYPE.DELETED, deleted.getType());
+            assertEquals(name(0), deleted.getId());
+            assertNull(events.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void bulkReportsEachOperation() {
+        List<BulkOperationDTO> operations = List.of(
+            operation(BULK_OP.create, null, widget("widget-bulk", "", 3)),
+            operation(BULK_OP.create, null, widget("widget-invalid", "", "three")),
+            operation(BULK_OP.update, name(2), widget(name(2), "", 5)),
+            operation(BULK_OP.update, name(1), widget(name(1), "", 5)),
+            operation(BULK_OP.delete, name(4), null),
+            operation(BULK_OP.update, "missing", widget("missing", "", 5))
+        );
+
+        List<BulkResultDTO> results = service.bulk(CRD_ID, operations, NAMESPACE);
+
+        assertEquals(List.of(201, 400, 200, 403, 204, 404), results.stream().map(BulkResultDTO::getStatus).toList());
+        assertEquals("widget-bulk", results.get(0).getId());
+        var crs = client.genericKubernetesResources(context).inNamespace(NAMESPACE);
+        assertEquals("krm", crs.withName("widget-bulk").get().getMetadata().getLabels().get("app.kubernetes.io/created-by"));
+        assertNull(crs.withName("widget-invalid").get());
+        assertEquals(Map.of("size", 5), crs.withName(name(2)).get().getAdditionalProperties().get("spec"));
+        assertNull(crs.withName(name(4)).get());
+    }
+
+    @Test
+    void patchValidatesAndSendsPatch() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        // one read to validate, then the patch
+        int before = server.getRequestCount();
+        IdAwareCustomResource merged = service.patch(
+            CRD_ID, name(2), mapper.readTree("{\"spec\":{\"size\":7}}"), PatchType.JSON_MERGE, null, NAMESPACE
+        );
+        assertEquals(Map.of("size", 7), merged.getCr().getAdditionalProperties().get("spec"));
+        assertEquals(2, server.getRequestCount() - before);
+
+        IdAwareCustomResource patched = service.patch(
+            CRD_ID, name(2), mapper.readTree("[{\"op\":\"replace\",\"path\":\"/spec/size\",\"value\":8}]"), PatchType.JSON, null, NAMESPACE
+        );
+        assertEquals(Map.of("size", 8), patched.getCr().getAdditionalProperties().get("spec"));
+
+        // invalid result, stale version and ownership changes are rejected before sending
+        assertThrows(ValidationException.class, () -> service.patch(
+            CRD_ID, name(2), mapper.readTree("{\"spec\":{\"size\":\"eight\"}}"), PatchType.JSON_MERGE, null, NAMESPACE
+        ));
+        assertThrows(OptimisticLockingFailureException.class, () -> service.patch(
+            CRD_ID, name(2), mapper.readTree("{\"spec\":{\"size\":9}}"), PatchType.JSON_MERGE, "1", NAMESPACE
+        ));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(
+            CRD_ID, name(2), mapper.readTree("{\"metadata\":{\"labels\":null}}"), PatchType.JSON_MERGE, null, NAMESPACE
+        ));
+        assertEquals(
+            Map.of("size", 8),
+            client.genericKubernetesResources(context).inNamespace(NAMESPACE).withName(name(2)).get().getAdditionalProperties().get("spec")
+        );
+    }
+
+    @Test
+    void updateSendsPutWithClientVersion() {
+        var crs = client.genericKubernetesResources(context).inNamespace(NAMESPACE);
+        GenericKubernetesResource current = crs.withName(name(2)).get();
+
+        // one read for the ownership check, then the PUT
+        GenericKubernetesResource request = widget(name(2), "krm", 7);
+        request.getMetadata().setResourceVersion(current.getMetadata().getResourceVersion());
+        int before = server.getRequestCount();
+        service.update(CRD_ID, name(2), new IdAwareCustomResource(request), NAMESPACE);
+        assertEquals(2, server.getRequestCount() - before);
+        assertEquals(Map.of("size", 7), crs.withName(name(2)).get().getAdditionalProperties().get("spec"));
+
+        // the version the client read is now stale
+        request.setAdditionalProperty("spec", Map.of("size", 9));
+        assertThrows(OptimisticLockingFailureException.class, () ->
+            service.update(CRD_ID, name(2), new IdAwareCustomResource(request), NAMESPACE)
+        );
+        assertEquals(Map.of("size", 7), crs.withName(name(2)).get().getAdditionalProperties().get("spec"));
+    }
+}
@@ -0,0 +1,107 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Reads of the cached and informer-backed resources, and their errors
+ */
+class K8SSvcServiceTests {
+
+    private static final String NAMESPACE = "test";
+    private static final String SELECTOR = "app=krm";
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private K8SSvcService service;
+
+    @BeforeEach
+    void setUp() {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(), new KubernetesCrudDispatcher(), true);
+        server.init();
+        client = server.createClient();
+        service = service(client);
+
+        client.services().inNamespace(NAMESPACE).resource(
+            new ServiceBuilder().withNewMetadata().withName("svc").withLabels(Map.of("app", "krm")).endMetadata().build()
+        ).create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stopInformers();
+        client.close();
+        server.destroy();
+    }
+
+    private static K8SSvcService service(KubernetesClient client) {
+        K8SAuthorizationService authService = mock(K8SAuthorizationService.class);
+        when(authService.getServiceSelectors()).thenReturn(List.of(SELECTOR));
+        return new K8SSvcService(client, authService, new K8SCallExecutor(2), new SimpleMeterRegistry(), DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void readFromCache() {
+        assertEquals(1, service.findAll(NAMESPACE, null, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals("svc", service.findById(NAMESPACE, "svc").getId());
+    }
+
+    @Test
+    void readFromInformers() {
+        ReflectionTestUtils.setField(service, "informerEnabled", true);
+        assertEquals(1, service.findAll(NAMESPACE, null, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals("svc", service.findById(NAMESPACE, "svc").getId());
+    }
+
+    @Test
+    void listErrorsArePropagated() {
+        KubernetesMockServer failing = new KubernetesMockServer(false);
+        failing.init();
+        failing
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/" + NAMESPACE + "/services?labelSelector=app%3Dkrm")
+            .andReturn(403, new StatusBuilder().withCode(403).withMessage("forbidden").build())
+            .always();
+        try (KubernetesClient failingClient = failing.createClient()) {
+            K8SSvcService failingService = service(failingClient);
+
+            // not reported as an empty namespace, nor as a missing resource
+            KubernetesClientException e = assertThrows(
+                KubernetesClientException.class,
+                () -> failingService.findAll(NAMESPACE, null, PageRequest.of(0, 10))
+            );
+            assertEquals(403, e.getCode());
+            assertThrows(KubernetesClientException.class, () -> failingService.findById(NAMESPACE, "svc"));
+        } finally {
+            failing.destroy();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent;
+import it.smartcommunitylab.dhub.rm.model.ResourceEvent.EVENT_TYPE;
+
+class ResourceEventServiceTests {
+
+    private static final String NAMESPACE = "test";
+
+    private K8SJobService jobService;
+    private ResourceEventService service;
+    private Runnable stop;
+    private final AtomicReference<Consumer<ResourceEvent>> watcher = new AtomicReference<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jobService = mock(K8SJobService.class);
+        stop = mock(Runnable.class);
+        when(jobService.watch(eq(NAMESPACE), any())).thenAnswer(invocation -> {
+            watcher.set(invocation.getArgument(1, Consumer.class));
+            return stop;
+        });
+        service = new ResourceEventService(
+            jobService,
+            mock(K8SDeploymentService.class),
+            mock(K8SSecretService.class),
+            mock(K8SPVCService.class),
+            mock(K8SSvcService.class),
+            mock(K8SQuotaService.class),
+            mock(CustomResourceService.class)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stopFeeds();
+    }
+
+    @Test
+    void slowSubscriberIsDropped() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        service.subscribe(
+            "k8s_job",
+            NAMESPACE,
+            e -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            },
+            closed::countDown
+        );
+
+        List<ResourceEvent> received = new CopyOnWriteArrayList<>();
+        service.subscribe("k8s_job", NAMESPACE, received::add, () -> {});
+        // one shared watch
+        verify(jobService, times(1)).watch(eq(NAMESPACE), any());
+
+        // publishing never waits for the subscribers
+        int count = ResourceEventService.QUEUE_SIZE + 10;
+        for (int i = 0; i < count; i++) {
+            watcher.get().accept(new ResourceEvent(EVENT_TYPE.MODIFIED, "job-" + i, String.valueOf(i)));
+        }
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        blocked.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, received.size());
+        // delivered in order
+        assertEquals("job-0", received.get(0).getId());
+        assertEquals("job-" + (count - 1), received.get(count - 1).getId());
+    }
+
+    @Test
+    void lastSubscriberStopsTheWatch() {
+        Runnable first = service.subscribe("k8s_job", NAMESPACE, e -> {}, () -> {});
+        Runnable second = service.subscribe("k8s_job", NAMESPACE, e -> {}, () -> {});
+        first.run();
+        verify(stop, times(0)).run();
+        second.run();
+        verify(stop, times(1)).run();
+        second.run();
+        verify(stop, times(1)).run();
+
+        // a new subscriber starts a new watch
+        service.subscribe("k8s_job", NAMESPACE, e -> {}, () -> {});
+        verify(jobService, times(2)).watch(eq(NAMESPACE), any());
+    }
+}
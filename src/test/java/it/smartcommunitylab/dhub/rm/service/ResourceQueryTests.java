@@ -0,0 +1,172 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.batch.v1.Job;
+import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
+
+class ResourceQueryTests {
+
+    private static Job job(String name, Integer succeeded, Map<String, String> labels) {
+        return new JobBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withLabels(labels)
+            .endMetadata()
+            .withNewStatus()
+            .withSucceeded(succeeded)
+            .endStatus()
+            .build();
+    }
+
+    private static GenericKubernetesResource cr(String name, Object size) {
+        return new GenericKubernetesResourceBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .endMetadata()
+            .withAdditionalProperties(Map.of("spec", Collections.singletonMap("size", size)))
+            .build();
+    }
+
+    private static <T extends HasMetadata> List<String> names(ResourceQuery query, List<T> values) {
+        Page<T> page = query.apply(values, Function.identity(), PageRequest.of(0, 100));
+        return page.getContent().stream().map(r -> r.getMetadata().getName()).toList();
+    }
+
+    @Test
+    void invalidExpressions() {
+        for (String filter : Arrays.asList("status", "=1", "status..phase=1", "metadata.class.name^=java")) {
+            assertThrows(IllegalArgumentException.class, () -> ResourceQuery.of(Sort.unsorted(), List.of(filter)), filter);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ResourceQuery.of(Sort.by("metadata.class"), null));
+        assertThrows(IllegalArgumentException.class, () -> ResourceQuery.of(Sort.by("class"), null));
+    }
+
+    @Test
+    void defaultQuery() {
+        assertTrue(ResourceQuery.of(Sort.unsorted(), null).isDefault());
+        assertTrue(ResourceQuery.of(Sort.by("id"), List.of(" ")).isDefault());
+        assertTrue(ResourceQuery.of(Sort.by(Sort.Direction.DESC, "metadata.name"), null).isIdOrder());
+        assertFalse(ResourceQuery.of(Sort.by("status.succeeded"), null).isIdOrder());
+    }
+
+    @Test
+    void labelKeysWithDots() {
+        List<Job> jobs = List.of(
+            job("a", 1, Map.of("app.kubernetes.io/name", "web")),
+            job("b", 1, Map.of("app.kubernetes.io/name", "db", "class", "batch")),
+            job("c", 1, Collections.emptyMap())
+        );
+        assertEquals(List.of("a"), names(ResourceQuery.of(null, List.of("metadata.labels.app.kubernetes.io/name=web")), jobs));
+        assertEquals(List.of("a", "c"), names(ResourceQuery.of(null, List.of("metadata.labels.app.kubernetes.io/name!=db")), jobs));
+        // a label key, not the class of the map
+        assertEquals(List.of("b"), names(ResourceQuery.of(null, List.of("metadata.labels.class=batch")), jobs));
+    }
+
+    @Test
+    void getterOnlyOnModel() {
+        List<Job> jobs = List.of(job("a", 1, null));
+        // String.isEmpty() and getBytes() are not resolved
+        assertEquals(List.of("a"), names(ResourceQuery.of(null, List.of("metadata.name.empty!=false")), jobs));
+        assertEquals(List.of(), names(ResourceQuery.of(null, List.of("metadata.name.bytes~=B")), jobs));
+        assertEquals(List.of("a"), names(ResourceQuery.of(null, List.of("status.succeeded=1")), jobs));
+    }
+
+    @Test
+    void operators() {
+        List<Job> jobs = List.of(job("db-1", 1, null), job("db-2", 0, null), job("web", 1, null));
+        assertEquals(List.of("db-1", "db-2"), names(ResourceQuery.of(null, List.of("id^=db-")), jobs));
+        assertEquals(List.of("db-2"), names(ResourceQuery.of(null, List.of("id~=-2")), jobs));
+        assertEquals(List.of("db-1"), names(ResourceQuery.of(null, List.of("id^=db-", "status.succeeded=1")), jobs));
+    }
+
+    @Test
+    void missingValuesLast() {
+        List<Job> jobs = List.of(job("a", null, null), job("b", 2, null), job("c", 1, null), job("d", null, null));
+        assertEquals(List.of("c", "b", "a", "d"), names(ResourceQuery.of(Sort.by("status.succeeded"), null), jobs));
+        assertEquals(
+            List.of("b", "c", "a", "d"),
+            names(ResourceQuery.of(Sort.by(Sort.Direction.DESC, "status.succeeded"), null), jobs)
+        );
+    }
+
+    @Test
+    void mixedTypes() {
+        List<GenericKubernetesResource> crs = List.of(cr("a", "x"), cr("b", 10), cr("c", 9.5), cr("d", 9L));
+        // numbers by value whatever the type, others by string
+        assertEquals(List.of("d", "c", "b", "a"), names(ResourceQuery.of(Sort.by("spec.size"), null), crs));
+        assertEquals(List.of("b"), names(ResourceQuery.of(null, List.of("spec.size=10")), crs));
+    }
+
+    @Test
+    void reversedIdPage() {
+        List<Job> jobs = List.of(job("a", 1, null), job("b", 0, null), job("c", 1, null), job("d", 1, null));
+        ResourceQuery query = ResourceQuery.of(Sort.by(Sort.Direction.DESC, "id"), null);
+        Page<Job> page = query.apply(jobs, Function.identity(), PageRequest.of(1, 3));
+        assertEquals(List.of("a"), page.getContent().stream().map(j -> j.getMetadata().getName()).toList());
+        assertEquals(4, page.getTotalElements());
+
+        query = ResourceQuery.of(Sort.by(Sort.Direction.DESC, "id"), List.of("status.succeeded=1"));
+        page = query.apply(jobs, Function.identity(), PageRequest.of(0, 2));
+        assertEquals(List.of("d", "c"), page.getContent().stream().map(j -> j.getMetadata().getName()).toList());
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    void indexedOrderMatchesSort() {
+        // ties and missing timestamps, in random order
+        List<Job> jobs = List.of(
+            created("e", "2025-01-02T00:00:00Z"),
+            created("a", "2025-01-03T00:00:00Z"),
+            created("d", null),
+            created("c", "2025-01-02T00:00:00Z"),
+            created("b", "2025-01-01T00:00:00Z")
+        );
+        SortedIndex<Job> index = SortedIndex.of(j -> j.getMetadata().getName(), ResourceQuery.indexedOrders(j -> j), jobs);
+        List<Job> byId = index.values();
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            for (List<String> filters : List.of(List.<String>of(), List.of("id!=c"))) {
+                ResourceQuery query = ResourceQuery.of(Sort.by(direction, "metadata.creationTimestamp"), filters);
+                for (int p = 0; p < 3; p++) {
+                    PageRequest pageable = PageRequest.of(p, 2);
+                    Page<Job> sorted = query.apply(byId, Function.identity(), pageable);
+                    Page<Job> indexed = query.apply(index, Function.identity(), pageable);
+                    assertEquals(sorted.getContent(), indexed.getContent(), direction + " " + filters + " " + p);
+                    assertEquals(sorted.getTotalElements(), indexed.getTotalElements());
+                }
+            }
+        }
+        assertEquals(
+            List.of("a", "c", "e", "b", "d"),
+            names(ResourceQuery.of(Sort.by(Sort.Direction.DESC, "metadata.creationTimestamp"), null), byId)
+        );
+    }
+
+    private static Job created(String name, String timestamp) {
+        Job job = job(name, 1, null);
+        job.getMetadata().setCreationTimestamp(timestamp);
+        return job;
+    }
+}
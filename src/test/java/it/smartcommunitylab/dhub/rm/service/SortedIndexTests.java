@@ -0,0 +1,152 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class SortedIndexTests {
+
+    private record Item(String key, int version) {}
+
+    private static SortedIndex<Item> index(String... keys) {
+        return SortedIndex.of(Item::key, Arrays.stream(keys).map(k -> new Item(k, 0)).toList());
+    }
+
+    private static List<String> keys(SortedIndex<Item> index) {
+        return index.values().stream().map(Item::key).toList();
+    }
+
+    @Test
+    void replaceAllSortsByKey() {
+        SortedIndex<Item> index = index("c", "a", "b");
+        assertEquals(List.of("a", "b", "c"), keys(index));
+
+        index.replaceAll(List.of(new Item("e", 0), new Item("d", 0)));
+        assertEquals(List.of("d", "e"), keys(index));
+        assertNull(index.get("a"));
+    }
+
+    @Test
+    void putInsertsInOrder() {
+        SortedIndex<Item> index = index("b", "d");
+        index.put(new Item("a", 0));
+        index.put(new Item("e", 0));
+        index.put(new Item("c", 0));
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), keys(index));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void putReplacesSameKeyInPlace() {
+        SortedIndex<Item> index = index("a", "b", "c");
+        Item updated = new Item("b", 1);
+        index.put(updated);
+
+        assertEquals(List.of("a", "b", "c"), keys(index));
+        assertSame(updated, index.values().get(1));
+        assertSame(updated, index.get("b"));
+    }
+
+    @Test
+    void removeKeepsOrder() {
+        SortedIndex<Item> index = index("a", "b", "c", "d");
+
+        assertEquals("a", index.remove("a").key());
+        assertEquals("c", index.remove("c").key());
+        assertNull(index.remove("missing"));
+        assertEquals(List.of("b", "d"), keys(index));
+        assertNull(index.get("c"));
+
+        index.remove("b");
+        index.remove("d");
+        assertEquals(0, index.size());
+        index.put(new Item("a", 0));
+        assertEquals(List.of("a"), keys(index));
+    }
+
+    @Test
+    void valuesAreASnapshot() {
+        SortedIndex<Item> index = index("a", "c");
+        List<Item> before = index.values();
+
+        index.put(new Item("b", 0));
+        index.remove("a");
+
+        assertEquals(List.of("a", "c"), before.stream().map(Item::key).toList());
+        assertEquals(List.of("b", "c"), keys(index));
+    }
+
+    @Test
+    void pageCopiesRange() {
+        SortedIndex<Item> index = index("a", "b", "c", "d", "e");
+
+        assertEquals(List.of("c", "d"), index.page(2, 2).stream().map(Item::key).toList());
+        assertEquals(List.of("e"), index.page(4, 2).stream().map(Item::key).toList());
+        assertEquals(List.of(), index.page(5, 2));
+    }
+
+    @Test
+    void ordersAreMaintained() {
+        // by version, ties by key
+        SortedIndex<Item> index = SortedIndex.of(
+            Item::key,
+            Map.of("version", Comparator.comparingInt(Item::version)),
+            List.of(new Item("a", 2), new Item("b", 1), new Item("c", 2))
+        );
+        assertEquals(List.of("b", "a", "c"), index.values("version").stream().map(Item::key).toList());
+        assertNull(index.values("missing"));
+
+        // updates move the value in the order
+        index.put(new Item("a", 0));
+        index.put(new Item("d", 1));
+        index.remove("b");
+        assertEquals(List.of("a", "d", "c"), index.values("version").stream().map(Item::key).toList());
+        assertEquals(List.of("a", "c", "d"), keys(index));
+    }
+
+    @Test
+    void randomChangesMatchReference() {
+        Random random = new Random(42);
+        SortedIndex<Item> index = SortedIndex.of(
+            Item::key,
+            Map.of("version", Comparator.comparingInt(Item::version)),
+            List.of()
+        );
+        TreeMap<String, Item> reference = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                assertEquals(reference.remove(key), index.remove(key));
+            } else {
+                Item item = new Item(key, random.nextInt(50));
+                reference.put(key, item);
+                index.put(item);
+            }
+            if (i % 1000 == 0) {
+                index.replaceAll(reference.values());
+            }
+        }
+
+        assertEquals(new ArrayList<>(reference.values()), index.values());
+        assertEquals(reference.size(), index.size());
+        List<Item> byVersion = new ArrayList<>(reference.values());
+        byVersion.sort(Comparator.comparingInt(Item::version).thenComparing(Item::key));
+        assertEquals(byVersion, index.values("version"));
+        assertEquals(byVersion.subList(100, 125), SortedIndex.page(index.values("version"), 100, 25));
+    }
+}
@@ -0,0 +1,101 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StartupTasksTests {
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private StartupTasks startupTasks;
+
+    @AfterEach
+    void tearDown() {
+        startupTasks.shutdown();
+    }
+
+    @Test
+    void failedTaskIsRetried() throws InterruptedException {
+        startupTasks = new StartupTasks(2, 3, Duration.ofMillis(500), new SimpleMeterRegistry(), events::add);
+        AtomicInteger calls = new AtomicInteger();
+        startupTasks.submit(
+            "flaky",
+            () -> {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("api server not reachable");
+                }
+            }
+        );
+
+        Health health = startupTasks.health();
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals("pending", details(health, "flaky").get("state"));
+
+        startupTasks.start();
+        await(() -> calls.get() >= 1 && "failed".equals(details(startupTasks.health(), "flaky").get("state")));
+        health = startupTasks.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("api server not reachable", details(health, "flaky").get("error"));
+
+        await(startupTasks::isCompleted);
+        health = startupTasks.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("completed", details(health, "flaky").get("state"));
+        assertEquals(2, details(health, "flaky").get("attempts"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void exhaustedTaskBreaksLiveness() throws InterruptedException {
+        startupTasks = new StartupTasks(2, 2, Duration.ofMillis(10), new SimpleMeterRegistry(), events::add);
+        startupTasks.submit("ok", () -> {});
+        startupTasks.submit(
+            "broken",
+            () -> {
+                throw new IllegalStateException("database not reachable");
+            }
+        );
+        startupTasks.start();
+
+        await(() -> !events.isEmpty());
+        AvailabilityChangeEvent<?> event = (AvailabilityChangeEvent<?>) events.get(0);
+        assertEquals(LivenessState.BROKEN, event.getState());
+
+        Health health = startupTasks.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("completed", details(health, "ok").get("state"));
+        assertEquals(2, details(health, "broken").get("attempts"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> details(Health health, String task) {
+        return (Map<String, Object>) health.getDetails().get(task);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+// SPDX-FileCopyrightText: © 2025 DSLab - Fondazione Bruno Kessler
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package it.smartcommunitylab.dhub.rm.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.fabric8.kubernetes.client.informers.cache.Store;
+
+class StoreIndexHandlerTests {
+
+    /**
+     * Informer store backed by a map, delivering the events to the registered handlers
+     */
+    private static class TestStore implements Store<ConfigMap> {
+
+        private final Map<String, ConfigMap> items = new LinkedHashMap<>();
+        private final List<ResourceEventHandler<? super ConfigMap>> handlers = new ArrayList<>();
+        private final SharedIndexInformer<ConfigMap> informer;
+
+        @SuppressWarnings("unchecked")
+        TestStore() {
+            informer = mock(SharedIndexInformer.class);
+            when(informer.getStore()).thenReturn(this);
+            when(informer.addEventHandler(any())).thenAnswer(i -> {
+                handlers.add(i.getArgument(0));
+                return informer;
+            });
+        }
+
+        void add(ConfigMap cm) {
+            ConfigMap old = items.put(getKey(cm), cm);
+            handlers.forEach(h -> {
+                if (old == null) {
+                    h.onAdd(cm);
+                } else {
+                    h.onUpdate(old, cm);
+                }
+            });
+        }
+
+        void delete(String name) {
+            ConfigMap old = items.remove(Cache.namespaceKeyFunc("test", name));
+            handlers.forEach(h -> h.onDelete(old, false));
+        }
+
+        void replay(String name) {
+            ConfigMap cm = items.get(Cache.namespaceKeyFunc("test", name));
+            handlers.forEach(h -> h.onUpdate(cm, cm));
+        }
+
+        @Override
+        public List<ConfigMap> list() {
+            return new ArrayList<>(items.values());
+        }
+
+        @Override
+        public List<String> listKeys() {
+            return new ArrayList<>(items.keySet());
+        }
+
+        @Override
+        public ConfigMap get(ConfigMap obj) {
+            return items.get(getKey(obj));
+        }
+
+        @Override
+        public ConfigMap getByKey(String key) {
+            return items.get(key);
+        }
+
+        @Override
+        public String getKey(ConfigMap obj) {
+            return Cache.metaNamespaceKeyFunc(obj);
+        }
+    }
+
+    private static ConfigMap configMap(String name, String owner) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withNamespace("test")
+            .withLabels(Map.of("owner", owner))
+            .endMetadata()
+            .build();
+    }
+
+    private TestStore first;
+    private TestStore second;
+    private AtomicInteger mapped;
+    private SortedIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        first = new TestStore();
+        second = new TestStore();
+        first.add(configMap("b", "krm"));
+        second.add(configMap("a", "krm"));
+        second.add(configMap("b", "krm"));
+        second.add(configMap("c", "other"));
+
+        // only the resources owned by krm are indexed
+        mapped = new AtomicInteger();
+        index = StoreIndexHandler.bind(
+            List.of(first.informer, second.informer),
+            cm -> {
+                mapped.incrementAndGet();
+                return "krm".equals(cm.getMetadata().getLabels().get("owner")) ? cm.getMetadata().getName() : null;
+            },
+            name -> name
+        );
+    }
+
+    @Test
+    void loadsAllStores() {
+        assertEquals(List.of("a", "b"), index.values());
+        // b is read from the first store only
+        assertEquals(3, mapped.get());
+    }
+
+    @Test
+    void replayedEventsAreSkipped() {
+        first.replay("b");
+        second.replay("a");
+        assertEquals(3, mapped.get());
+
+        second.add(configMap("a", "krm"));
+        assertEquals(4, mapped.get());
+        assertEquals(List.of("a", "b"), index.values());
+    }
+
+    @Test
+    void changesAreRecomputedFromAllStores() {
+        // still in the second store
+        first.delete("b");
+        assertEquals(List.of("a", "b"), index.values());
+
+        second.delete("b");
+        assertEquals(List.of("a"), index.values());
+
+        // owner changes add and remove the resource
+        second.add(configMap("c", "krm"));
+        assertEquals(List.of("a", "c"), index.values());
+        second.add(configMap("a", "other"));
+        assertEquals(List.of("c"), index.values());
+    }
+
+    @Test
+    void loadsIndexedContentOnly() {
+        // initial content read from an index of the store: only the candidates are mapped
+        AtomicInteger count = new AtomicInteger();
+        SortedIndex<String> owned = StoreIndexHandler.bind(
+            List.of(second.informer),
+            i -> i.getStore().list().stream().filter(cm -> "krm".equals(cm.getMetadata().getLabels().get("owner"))).toList(),
+            cm -> {
+                count.incrementAndGet();
+                return "krm".equals(cm.getMetadata().getLabels().get("owner")) ? cm.getMetadata().getName() : null;
+            },
+            new SortedIndex<>(name -> name)
+        );
+        assertEquals(List.of("a", "b"), owned.values());
+        assertEquals(2, count.get());
+
+        // later changes are still filtered by the mapper
+        second.add(configMap("c", "krm"));
+        second.add(configMap("d", "other"));
+        assertEquals(List.of("a", "b", "c"), owned.values());
+    }
+}